@@ -24,19 +24,29 @@ public class Model extends Observable implements IModel {
         }
 
         ReadFile f = new ReadFile();
+        f.setStemming(withStemm);
         File corpus = new File(corpusPath);
         long startTime,endTime;
         startTime = System.nanoTime();
         this.corpusPath = corpusPath;
         this.postingPath = postingPath;
-        Indexer.getInstance().setPathToPostFiles(postingPath);
-        f.readCorpus(corpus);
-
+        // the stemmed and the unstemmed index do not overwrite each other
+        String indexPath = Indexer.getPostingFolder(postingPath, withStemm);
+        try {
+            FileUtils.forceMkdir(new File(indexPath));
+        } catch (Exception e) {
+            System.out.println("Could not create " + indexPath);
+        }
+        Indexer.getInstance().setPathToPostFiles(indexPath);
+        // the Indexer runs while the corpus is read, the checkpoints of the reading wait for it
         for (int i = 0; i < IndexerThreads.length; i++) {
             System.out.println(IndexerThreads[i].getName() + " has started...");
             IndexerThreads[i].start();
         }
 
+        f.readCorpus(corpus);
+        f.stopThreads();
+
         try{
             for (int i = 0; i < IndexerThreads.length; i++) {
 
@@ -48,6 +58,7 @@ public class Model extends Observable implements IModel {
         {
             e.printStackTrace();
         }
+        Indexer.getInstance().createCorpusDictionary();
 
         endTime = System.nanoTime();
         System.out.println("There are "+ f.numOfCorpusFiles + " files in the corpus and it took: " + (endTime - startTime)/1000000000 + " Seconds to iterate over them all");
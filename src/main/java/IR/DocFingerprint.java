@@ -0,0 +1,98 @@
+package IR;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A 128 bit fingerprint of the text of a {@link Document}, two documents with the same text have the same fingerprint.
+ * It is made of two independent 64 bit hashes of the chars,
+ * so two different texts share a fingerprint only with a negligible probability.
+ * A text that was not decoded yet is fingerprinted by its raw bytes, which is a different fingerprint than the one of its chars.
+ */
+public final class DocFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long MIX_SEED = 0x9e3779b97f4a7c15L;
+    private static final long MIX_MULTIPLIER = 0xff51afd7ed558ccdL;
+
+    private final long high;
+    private final long low;
+
+    public DocFingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * @param text - the text of a document
+     * @return the fingerprint of the text
+     */
+    public static DocFingerprint of(CharSequence text) {
+        long fnvHash = FNV_OFFSET;
+        long mixHash = MIX_SEED ^ text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            fnvHash = (fnvHash ^ c) * FNV_PRIME;
+            mixHash = Long.rotateLeft(mixHash ^ (c * MIX_SEED), 29) * MIX_MULTIPLIER;
+        }
+        return new DocFingerprint(finalMix(fnvHash ^ text.length()), finalMix(mixHash));
+    }
+
+    /**
+     * @param rawText - the raw bytes of the text of a document, in one or more parts
+     * @return the fingerprint of the bytes of all the parts one after the other
+     */
+    public static DocFingerprint of(ByteBuffer... rawText) {
+        int length = 0;
+        for (ByteBuffer part :
+                rawText) {
+            length += part.remaining();
+        }
+        long fnvHash = FNV_OFFSET;
+        long mixHash = MIX_SEED ^ length;
+        for (ByteBuffer part :
+                rawText) {
+            for (int i = part.position(); i < part.limit(); i++) {
+                int b = part.get(i) & 0xFF;
+                fnvHash = (fnvHash ^ b) * FNV_PRIME;
+                mixHash = Long.rotateLeft(mixHash ^ (b * MIX_SEED), 29) * MIX_MULTIPLIER;
+            }
+        }
+        return new DocFingerprint(finalMix(fnvHash ^ length), finalMix(mixHash));
+    }
+
+    private static long finalMix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= MIX_MULTIPLIER;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DocFingerprint)) return false;
+        DocFingerprint that = (DocFingerprint) o;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -2,117 +2,161 @@ package IR;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
-import java.util.HashMap;
+import java.util.function.Supplier;
 
 /**
  * IR.Document Class is representing a document in the corpus
- * it has 4 parameters:
- * termsDictonary - HashMap that hold all the Terms in the Doc and how many times in it.
- * allDocElements - Each doc has many elements in it (DocNumber,Headers,text...etc') so this param is holding all of them
- * docText - The text of the IR.Document
+ * It is kept compact since it waits in the parsers queue, it has 4 parameters:
  * docNo - The DocNumber of the IR.Document
+ * docId - The int id the postings hold instead of the DocNumber, given when the IR.Document is enqueued
+ * text - The text of the IR.Document, or a source that decodes it on demand (an offset into a mapped corpus file)
+ * textArray - The text split to tokens, created only when the parser asks for it and released after the parse
+ * fingerprint - A hash of the text, kept after the text is released, two Documents are equal if their texts are
+ * A Document whose text is decoded on demand gets its fingerprint and whether it has text from the raw text,
+ * so finding duplicates does not decode it.
+ * No Jsoup element is kept by the Document.
  * @see Element
- * @see HashMap
  * @see Term
  */
 public class Document {
 
-
-    //    private ConcurrentHashMap
-    private HashMap<Term,Integer> termsDictonary;// Each IR.Term has an Integer that presets how many times this IR.Term is present in the IR.Document
-
-    private Elements allDocElements;
-    private Elements docText;
-    private Elements docNo;
+    private String docNo;
+    private int docId = -1;
+    private String text;
+    private Supplier<String> textSource;
+    private int textSourceLength;
     private String[] textArray;
+    private Boolean empty;
+    private DocFingerprint fingerprint;
 
+    /**
+     * Takes the DocNumber and the text out of the Jsoup element, the element itself is not kept
+     * @param fileDocInCorpus - a DOC element of a corpus file
+     */
     public Document(Element fileDocInCorpus) {
-        this.termsDictonary = new HashMap<>();
-        this.allDocElements = fileDocInCorpus.getAllElements();
-        docText = fileDocInCorpus.getElementsByTag("text");
-        docNo = fileDocInCorpus.getElementsByTag("docno");
-        textArray = StringUtils.split(docText.text());
-        /**
-         * searches for the element \"Text\" and \"docNo\"
-         */
-//        for (Element elem :
-//                allDocElements) {
-//            if (elem.tag().equals("text"))
-//            {
-//                docText = elem;
-//            }
-//            else if(elem.tag().equals("docno"))
-//            {
-//                docNo = elem;
-//            }
-//        }
+        this(fileDocInCorpus.getElementsByTag("docno").text(), fileDocInCorpus.getElementsByTag("text").text());
+    }
 
+    /**
+     * Creates a Document without a Jsoup element, used by the streaming splitter
+     * @param docNo - the DocNumber of the Document
+     * @param text - the text of the TEXT element of the Document
+     */
+    public Document(String docNo, String text) {
+        this.docNo = docNo;
+        this.text = text;
     }
 
-    public Elements getDocText() {
-        return docText;
+    /**
+     * Creates a Document whose text is decoded only when it is asked for,
+     * used by the memory mapped reader so the text stays in the mapped file until the parser needs it
+     * @param docNo - the DocNumber of the Document
+     * @param textSource - decodes the text of the TEXT element of the Document
+     * @param textSourceLength - the length of the raw text, before it is decoded
+     * @param fingerprint - the fingerprint of the raw text
+     * @param hasText - false if the raw text has nothing but tags and white spaces
+     */
+    public Document(String docNo, Supplier<String> textSource, int textSourceLength, DocFingerprint fingerprint, boolean hasText) {
+        this.docNo = docNo;
+        this.textSource = textSource;
+        this.textSourceLength = textSourceLength;
+        this.fingerprint = fingerprint;
+        this.empty = !hasText;
+    }
+
+    public String getText() {
+        if (text == null && textSource != null) {
+            text = textSource.get();
+            textSource = null;
+        }
+        return text;
+    }
+
+    /**
+     * @return estimated bytes of the text this Document holds or will hold once decoded
+     */
+    public long getSizeInBytes() {
+        int textLength = text != null ? text.length() : textSourceLength;
+        return 2L * textLength;
     }
 
     public String getDocNo() {
 
-        return docNo.text();
+        return docNo;
+    }
+
+    public int getDocId() {
+        return docId;
+    }
+
+    public void setDocId(int docId) {
+        this.docId = docId;
     }
 
+    /**
+     * @return the text split by white spaces, split on the first call
+     */
     public String[] getTextArray() {
+        if (textArray == null) {
+            textArray = StringUtils.split(getText());
+        }
         return textArray;
     }
 
     /**
-     * if newTerm is not in the Doc termsDictionary it adds to the Dictionary with value 1
-     * @param newTerm - a IR.Term that suppose to be in this Doc text docText
+     * @return the fingerprint of the text, computed on the first call
      */
-    public void insertFoundTermInDoc(Term newTerm)
-    {
-        if(newTerm != null )
-        {
-            if(!termsDictonary.containsKey(newTerm))
-            {
-                termsDictonary.put(newTerm,1);
-            }
-            else
-            {
-                increaseTermCountInDoc(newTerm);
-            }
+    public DocFingerprint getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = DocFingerprint.of(getText());
         }
+        return fingerprint;
     }
 
     /**
-     * if the existingTerm is already in the termsDictionary its value is increased by 1
-     * @param existingTerm - a term that is already inside the dictionary
+     * @return true if the Document has no text at all, the text is scanned up to its first char that is not a white space
      */
-    public void increaseTermCountInDoc(Term existingTerm)
-    {
-        if(existingTerm != null)
-        {
-            if(termsDictonary.containsKey(existingTerm))
-            {
-                Integer oldCount = termsDictonary.get(existingTerm);
-                Integer newCount = oldCount++;
-                termsDictonary.replace(existingTerm,oldCount,newCount);
+    public boolean isEmpty() {
+        if (empty == null) {
+            String docText = getText();
+            boolean hasText = false;
+            for (int i = 0; i < docText.length() && !hasText; i++) {
+                hasText = !Character.isWhitespace(docText.charAt(i));
             }
+            empty = !hasText;
         }
+        return empty;
     }
 
+    /**
+     * Drops the text and its tokens once the Document was parsed, only the DocNumber and the fingerprint are kept
+     */
+    public void releaseText() {
+        if (text != null || textSource != null) {
+            getFingerprint();
+            isEmpty();
+        }
+        text = null;
+        textSource = null;
+        textArray = null;
+    }
+
+    /**
+     * Documents without text are never equal, they are different documents that have no TEXT element
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Document)) return false;
         Document document = (Document) o;
-        if(document.textArray.length == 0)
+        if(this.isEmpty() || document.isEmpty())
             return false;
-        return this.textArray.length == document.textArray.length &&
-                this.textArray[0].equals(document.textArray[0]);
+        return this.getFingerprint().equals(document.getFingerprint());
     }
 
-//    @Override
-//    public int hashCode() {
-//        return Objects.hash(termsDictonary, allDocElements);
-//    }
+    @Override
+    public int hashCode() {
+        return isEmpty() ? System.identityHashCode(this) : getFingerprint().hashCode();
+    }
 }
@@ -0,0 +1,223 @@
+package Indexer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Public Singelton that gives every document a dense int id by the order the documents are ingested.
+ * The postings hold the id instead of the DocNumber,
+ * the table id -> DocNumber and metadata is written next to the posting files.
+ * Each line of the table file is: id#DocNumber#numOfTokens
+ * Documents that were not indexed since they are near duplicates of an indexed one are collapsed into it,
+ * each line of the collapsed file is: DocNumber#idOfTheIndexedDocument
+ */
+public class DocRegistry {
+
+    public static final String DOCS_FILE_NAME = "documents";
+    public static final String COLLAPSED_FILE_NAME = "collapsedDocuments";
+    private static final String delim = "#";
+    private static volatile DocRegistry mInstance;
+    private List<String> docNumbers;
+    private int[] docLengths;
+    private List<String> collapsedDocNumbers;
+    private List<Integer> collapsedInto;
+
+    private DocRegistry() {
+        docNumbers = new ArrayList<>();
+        docLengths = new int[1024];
+        collapsedDocNumbers = new ArrayList<>();
+        collapsedInto = new ArrayList<>();
+    }
+
+    public static DocRegistry getInstance() {
+        if (mInstance == null) {
+            synchronized (DocRegistry.class) {
+                if (mInstance == null) {
+                    mInstance = new DocRegistry();
+                }
+            }
+        }
+        return mInstance;
+    }
+
+    /**
+     * Gives the document the next id
+     * @param docNo - the DocNumber of the document
+     * @return the id of the document
+     */
+    public synchronized int register(String docNo) {
+        docNumbers.add(docNo);
+        return docNumbers.size() - 1;
+    }
+
+    /**
+     * Keeps a document that is not indexed since it is a near duplicate of an indexed document
+     * @param docNo - the DocNumber of the collapsed document
+     * @param indexedDocId - the id of the indexed document it is collapsed into
+     */
+    public synchronized void registerCollapsed(String docNo, int indexedDocId) {
+        collapsedDocNumbers.add(docNo);
+        collapsedInto.add(indexedDocId);
+    }
+
+    public synchronized int getNumOfCollapsed() {
+        return collapsedDocNumbers.size();
+    }
+
+    /**
+     * @return every collapsed document as {DocNumber, id of the indexed document}
+     */
+    public synchronized List<String[]> getCollapsed() {
+        List<String[]> collapsed = new ArrayList<>();
+        for (int i = 0; i < collapsedDocNumbers.size(); i++) {
+            collapsed.add(new String[]{collapsedDocNumbers.get(i), String.valueOf(collapsedInto.get(i))});
+        }
+        return collapsed;
+    }
+
+    /**
+     * @return the DocNumbers of the documents collapsed into the given document
+     */
+    public synchronized List<String> getCollapsedInto(int docId) {
+        List<String> collapsed = new ArrayList<>();
+        for (int i = 0; i < collapsedInto.size(); i++) {
+            if (collapsedInto.get(i) == docId) {
+                collapsed.add(collapsedDocNumbers.get(i));
+            }
+        }
+        return collapsed;
+    }
+
+    /**
+     * Keeps the number of tokens of a parsed document
+     * @param docId - the id of the document
+     * @param numOfTokens - the number of tokens in its text
+     */
+    public synchronized void setDocLength(int docId, int numOfTokens) {
+        if (docId >= docLengths.length) {
+            docLengths = Arrays.copyOf(docLengths, Math.max(docId + 1, docLengths.length * 2));
+        }
+        docLengths[docId] = numOfTokens;
+    }
+
+    public synchronized String getDocNo(int docId) {
+        return docNumbers.get(docId);
+    }
+
+    public synchronized int getDocLength(int docId) {
+        return docId < docLengths.length ? docLengths[docId] : 0;
+    }
+
+    public synchronized int size() {
+        return docNumbers.size();
+    }
+
+    public synchronized void clear() {
+        docNumbers = new ArrayList<>();
+        docLengths = new int[1024];
+        collapsedDocNumbers = new ArrayList<>();
+        collapsedInto = new ArrayList<>();
+    }
+
+    /**
+     * Writes the table id -> DocNumber and the collapsed documents to the given folder
+     * @param folder - the posting files folder
+     * @throws IOException
+     */
+    public synchronized void writeToDisk(Path folder) throws IOException {
+        writeToDisk(folder, DOCS_FILE_NAME);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(folder.resolve(COLLAPSED_FILE_NAME).toFile()))) {
+            for (int i = 0; i < collapsedDocNumbers.size(); i++) {
+                writer.append(collapsedDocNumbers.get(i)).append(delim).append(String.valueOf(collapsedInto.get(i)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the table id -> DocNumber to the given file in the folder
+     * @param folder - the folder of the table
+     * @param fileName - the name of the table file
+     * @throws IOException
+     */
+    public synchronized void writeToDisk(Path folder, String fileName) throws IOException {
+        Files.createDirectories(folder);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(folder.resolve(fileName).toFile()))) {
+            for (int docId = 0; docId < docNumbers.size(); docId++) {
+                writer.append(String.valueOf(docId)).append(delim)
+                        .append(docNumbers.get(docId)).append(delim)
+                        .append(String.valueOf(getDocLength(docId)));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #writeToDisk(Path)}, the ids of the table replace the current ones
+     * @param folder - the posting files folder
+     * @throws IOException
+     */
+    public synchronized void readFromDisk(Path folder) throws IOException {
+        readFromDisk(folder, Integer.MAX_VALUE);
+        readCollapsed(folder, 0);
+    }
+
+    /**
+     * Reads the first documents of a table written by {@link #writeToDisk(Path)}
+     * @param folder - the folder of the table
+     * @param maxDocs - the number of documents to read, the rest of the table is ignored
+     * @throws IOException
+     */
+    public synchronized void readFromDisk(Path folder, int maxDocs) throws IOException {
+        clear();
+        readTable(folder, maxDocs);
+    }
+
+    /**
+     * Registers all the documents of a table written by {@link #writeToDisk(Path)} after the current ones,
+     * used to merge the tables of indices that were built apart
+     * @param folder - the folder of the table
+     * @return the id the first document of the table got, the ids of the table are shifted by it
+     * @throws IOException
+     */
+    public synchronized int appendFromDisk(Path folder) throws IOException {
+        int idOffset = docNumbers.size();
+        readTable(folder, Integer.MAX_VALUE);
+        readCollapsed(folder, idOffset);
+        return idOffset;
+    }
+
+    private void readCollapsed(Path folder, int idOffset) throws IOException {
+        if (!folder.resolve(COLLAPSED_FILE_NAME).toFile().exists()) {
+            return;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(folder.resolve(COLLAPSED_FILE_NAME).toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int last = line.lastIndexOf(delim);
+                registerCollapsed(line.substring(0, last), Integer.parseInt(line.substring(last + 1)) + idOffset);
+            }
+        }
+    }
+
+    private void readTable(Path folder, int maxDocs) throws IOException {
+        int firstDoc = docNumbers.size();
+        try (BufferedReader reader = new BufferedReader(new FileReader(folder.resolve(DOCS_FILE_NAME).toFile()))) {
+            String line;
+            while (docNumbers.size() - firstDoc < maxDocs && (line = reader.readLine()) != null) {
+                int first = line.indexOf(delim);
+                int last = line.lastIndexOf(delim);
+                int docId = register(line.substring(first + 1, last));
+                setDocLength(docId, Integer.parseInt(line.substring(last + 1)));
+            }
+        }
+    }
+}
@@ -1,33 +1,53 @@
 package Indexer;
 
+import org.apache.commons.io.FileUtils;
+
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class Indexer implements Runnable {
+public class Indexer implements Runnable, IngestManifest.CheckpointState {
     private static final double MAX_POSTING_FILE_SIZE = 500;
-    private static final int MAX_TERMS_TO_INDEX = 500000;
-    private int countMergedTerms = 0;
+    private static final double DEFAULT_MEMORY_FRACTION = 0.25;
+    public static final String MEMORY_BUDGET_PROPERTY = "indexer.memoryBudgetMB";
+    public static final String MERGE_THREADS_PROPERTY = "indexer.mergeThreads";
+    private static final int MB_SIZE = 1024 * 1024;
+    // a HashMap node, its table slot and a String with its array, the chars of the term are added to it
+    private static final int TERM_ENTRY_OVERHEAD = 96;
+    public static final String DICTIONARY_FILE_NAME = "dictionary";
+    public static final String STEMMED_FOLDER_NAME = "stemmed";
+    public static final String UNSTEMMED_FOLDER_NAME = "unstemmed";
+    private long usedBytes = 0;
+    private long memoryBudget = defaultMemoryBudget();
+    private int mergeThreads = defaultMergeThreads();
     private static volatile Indexer mInstance;
-    private final int KB_SIZE = 1024;
+    private static volatile Indexer mStemmedInstance;
     //    private ConcurrentLinkedQueue<ConcurrentHashMap<String,String>> parsedWordsQueue;
-    private ConcurrentLinkedQueue<HashMap<String, String>> parsedWordsQueue;
-    private String postFiles;
+    private ConcurrentLinkedQueue<HashMap<String, PostingList>> parsedWordsQueue;
     private BufferedWriter fileWriter;
     public static volatile boolean stopThreads = false;
     //    public ConcurrentHashMap<String,String> corpusDictionary;
     public HashMap<String, String> corpusDictionary;
-    private String indexerName = "Indexer ";
-    private static AtomicInteger indexerNum;
-    private String pathToPostFolder = "./postingFiles/";
-    private String pathToTempFolder = "./dicTemp/";
-    public HashMap<String, String> hundredKtermsMap;
-
-    private Indexer() {
+    private String indexerName;
+    private AtomicInteger indexerNum;
+    private String pathToPostFolder;
+    private String pathToTempFolder;
+    public HashMap<String, PostingList> hundredKtermsMap;
+    private volatile CountDownLatch flushRequest;
+    private boolean resume = false;
+
+    private Indexer(String indexerName, String pathToPostFolder, String pathToTempFolder) {
+        this.indexerName = indexerName;
+        this.pathToPostFolder = pathToPostFolder;
+        this.pathToTempFolder = pathToTempFolder;
         this.parsedWordsQueue = new ConcurrentLinkedQueue<>();
         corpusDictionary = new HashMap<>();
         hundredKtermsMap = new HashMap<>();
@@ -43,24 +63,169 @@ public class Indexer implements Runnable {
         if (mInstance == null) {
             synchronized (Indexer.class) {
                 if (mInstance == null) {
-                    mInstance = new Indexer();
+                    mInstance = new Indexer("Indexer", "./postingFiles/", "./dicTemp/");
                 }
             }
         }
         return mInstance;
     }
 
+    /**
+     * The Indexer of the stemmed index when both indices are built in the same pass,
+     * it has its own temp runs and posting files and needs its own thread
+     */
+    public static Indexer getStemmedInstance() {
+        if (mStemmedInstance == null) {
+            synchronized (Indexer.class) {
+                if (mStemmedInstance == null) {
+                    mStemmedInstance = new Indexer("Stemmed Indexer", "./stemmedPostingFiles/", "./stemmedDicTemp/");
+                }
+            }
+        }
+        return mStemmedInstance;
+    }
+
 
-    public synchronized boolean enqueue(HashMap<String, String> parsedWords) {
+    /**
+     * Called by the parser threads with a map they no longer touch, the queue is lock free
+     */
+    public boolean enqueue(HashMap<String, PostingList> parsedWords) {
         return parsedWordsQueue.add(parsedWords);
     }
 
-    private synchronized HashMap<String, String> dequeue() {
+    private HashMap<String, PostingList> dequeue() {
         return parsedWordsQueue.poll();
     }
 
     public void setPathToPostFiles(String path) {
-        this.postFiles = path;
+        this.pathToPostFolder = path;
+    }
+
+    /**
+     * The stemmed and the unstemmed index of a corpus are kept side by side in the posting folder the user chose
+     * @param postingPath - the posting folder the user chose
+     * @param stemming - true for the folder of the stemmed index
+     * @return the posting folder of the index
+     */
+    public static String getPostingFolder(String postingPath, boolean stemming) {
+        return Paths.get(postingPath, stemming ? STEMMED_FOLDER_NAME : UNSTEMMED_FOLDER_NAME).toString();
+    }
+
+    public String getPathToPostFolder() {
+        return pathToPostFolder;
+    }
+
+    /**
+     * Sets the folder of the temp runs, every process that indexes into the same machine needs its own
+     * @param path - the temp folder
+     */
+    public void setPathToTempFolder(String path) {
+        this.pathToTempFolder = path.endsWith("/") || path.endsWith(File.separator) ? path : path + File.separator;
+    }
+
+    public String getPathToTempFolder() {
+        return pathToTempFolder;
+    }
+
+    /**
+     * The budget comes from the system property indexer.memoryBudgetMB if it is set,
+     * else it is a quarter of the maximum heap
+     * @return the default number of bytes the merged terms may take before they are written to a temp run
+     */
+    public static long defaultMemoryBudget() {
+        String budgetMB = System.getProperty(MEMORY_BUDGET_PROPERTY);
+        if (budgetMB != null) {
+            try {
+                return Long.parseLong(budgetMB.trim()) * MB_SIZE;
+            } catch (NumberFormatException e) {
+                System.out.println("Bad " + MEMORY_BUDGET_PROPERTY + ": " + budgetMB);
+            }
+        }
+        return (long) (Runtime.getRuntime().maxMemory() * DEFAULT_MEMORY_FRACTION);
+    }
+
+    /**
+     * Sets the number of bytes the merged terms may take, once they take more they are written to a temp run
+     * @param memoryBudget - the budget in bytes
+     */
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return the estimated number of bytes the merged terms take
+     */
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * The number comes from the system property indexer.mergeThreads if it is set,
+     * else it is the number of cores
+     * @return the default number of ranges the final merge splits the terms to, a range is merged by a thread of its own
+     */
+    public static int defaultMergeThreads() {
+        String threads = System.getProperty(MERGE_THREADS_PROPERTY);
+        if (threads != null) {
+            try {
+                return Math.max(1, Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException e) {
+                System.out.println("Bad " + MERGE_THREADS_PROPERTY + ": " + threads);
+            }
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Sets the number of threads of the final merge, 1 merges all the terms in the calling thread
+     */
+    public void setMergeThreads(int mergeThreads) {
+        this.mergeThreads = Math.max(1, mergeThreads);
+    }
+
+    public int getMergeThreads() {
+        return mergeThreads;
+    }
+
+    /**
+     * @return the estimated number of bytes a term and its postings take in a map of terms
+     */
+    static long estimateTermBytes(String term, PostingList postings) {
+        return TERM_ENTRY_OVERHEAD + term.length() + postings.memorySize();
+    }
+
+    /**
+     * @return the number of temp runs written so far, the runs are named 0 to getNumOfRuns()-1
+     */
+    public int getNumOfRuns() {
+        return indexerNum.get();
+    }
+
+    /**
+     * Continues an indexing that stopped, the temp runs before the given index are kept and the next run gets it
+     * and the posting files written by a merge that did not finish are cleaned before the dictionary is created
+     * @param numOfRuns - the number of runs the last checkpoint holds
+     */
+    public void resumeFromRun(int numOfRuns) {
+        indexerNum.set(numOfRuns);
+        resume = true;
+    }
+
+    /**
+     * Asks the Indexer thread to write everything it has got to a temp run and waits for it,
+     * the parsers must have released their terms before
+     * @return the number of temp runs written so far
+     * @throws InterruptedException
+     */
+    public int flush() throws InterruptedException {
+        CountDownLatch request = new CountDownLatch(1);
+        flushRequest = request;
+        request.await();
+        return getNumOfRuns();
     }
 
 
@@ -69,6 +234,7 @@ public class Indexer implements Runnable {
 //        System.out.println("Indexer has Started...");
         while (!stopThreads) {
             createPostFiles();
+            flushOnRequest();
         }
         writeHashMapToDisk();
 //        System.out.println("Indexer has stopped...");
@@ -86,7 +252,7 @@ public class Indexer implements Runnable {
 
         while (!isQEmpty()) {
 //            System.out.println("There are " + parsedWordsQueue.size() + " Maps left in the Q");
-            HashMap<String, String> dqdHshMap = dequeue();
+            HashMap<String, PostingList> dqdHshMap = dequeue();
 
             if (dqdHshMap == null) {
                 continue;
@@ -95,299 +261,509 @@ public class Indexer implements Runnable {
 
 
 //            System.out.println("Merging "+dqdHshMap.size());
-            int mapSizeBeforeMerge = hundredKtermsMap.size();
             startTime = System.nanoTime();
             mergeHashMapIntoHundred(dqdHshMap, hundredKtermsMap);
             endTime = System.nanoTime();
-            int mapSizeAfterMerge = hundredKtermsMap.size();
-            countMergedTerms += (mapSizeAfterMerge - mapSizeBeforeMerge);
 //            System.out.println("Merging took "+(endTime - startTime)/1000000000 + " seconds");
 
-            if (countMergedTerms >= MAX_TERMS_TO_INDEX) {
-//                System.out.println("Sorting "+hundredKtermsMap.size());
-//                startTime = System.nanoTime();
-//                sortDocListPerTerm();
+            if (usedBytes >= memoryBudget && !hundredKtermsMap.isEmpty()) {
+                System.out.println(indexerName + " reached its memory budget with " + hundredKtermsMap.size() + " terms ("
+                        + usedBytes / MB_SIZE + " of " + memoryBudget / MB_SIZE + " MB), writing run " + getNumOfRuns());
                 writeHashMapToDisk();
-//                endTime = System.nanoTime();
-                countMergedTerms = 0;
-//                System.out.println("Sorting took "+(endTime - startTime)/1000000000 + " seconds");
             }
 
         }
     }
 
     /**
-     * Writes the temp Dictionary sorted to the disk as object
+     * Writes the merged terms to a temp run if a flush was requested
      */
-    public void writeHashMapToDisk() {
-        sortDocListPerTerm();
-        try {
-            FileOutputStream fileOut = new FileOutputStream(pathToTempFolder + indexerNum.getAndIncrement(), true);
-            ObjectOutputStream objectOut = new ObjectOutputStream(fileOut);
-            objectOut.writeObject(hundredKtermsMap);
-            hundredKtermsMap = new HashMap<>();
-            objectOut.flush();
-            objectOut.close();
-            fileOut.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+    private void flushOnRequest() {
+        CountDownLatch request = flushRequest;
+        if (request != null) {
+            flushRequest = null;
+            createPostFiles();
+            if (!hundredKtermsMap.isEmpty()) {
+                writeHashMapToDisk();
+            }
+            request.countDown();
         }
     }
 
+    @Override
+    public String getStateName() {
+        return indexerName.replace(" ", "") + "Runs";
+    }
+
     /**
-     * Sorts the HashMap value if is as expected,
-     * DocList String:
-     * "FBIS3-8#6;FBIS3-1#2;BIS3-7#32;FBIS3-2#43;FBIS3-4#54;FBIS3-3#5;FBIS3-5#98;FBIS3-6#12"
-     * will be:
-     * "FBIS3-1#2;FBIS3-2#43;FBIS3-3#5;FBIS3-4#54;FBIS3-5#98;FBIS3-6#12;BIS3-7#32;FBIS3-8#6"
+     * Saves the number of temp runs, used when this Indexer is not the one whose runs the manifest records
      */
-    private void sortDocListPerTerm() {
-//        String[] myString = {"FBIS3-8#6","FBIS3-1#2","FBIS3-7#32","FBIS3-2#43","FBIS3-4#54","FBIS3-3#5","FBIS3-5#98","FBIS3-6#12"};
-//        Arrays.sort(myString);
-//        System.out.println(Arrays.toString(myString));
-//        StringBuilder newString = new StringBuilder(Arrays.toString(myString));
-
-        for (String key :
-                hundredKtermsMap.keySet()) {
-            String[] docList = hundredKtermsMap.get(key).split(";");
-            long start, end;
-            start = System.nanoTime();
-            Arrays.sort(docList);
-            end = System.nanoTime();
-//            System.out.println("The Sort took " + (end-start)/1000000 + " Milli Seconds");
-            String sortedList = Arrays.toString(docList).replaceAll(",", ";");
-            if (sortedList.charAt(0) == '[') {
-                sortedList = sortedList.substring(1);
+    @Override
+    public void writeState(Path stateFile) throws IOException {
+        Files.write(stateFile, Integer.toString(getNumOfRuns()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Deletes the temp runs written after the checkpoint and continues from it,
+     * the runs before it must be in the run format of this version
+     */
+    @Override
+    public void readState(Path stateFile) throws IOException {
+        int numOfRuns = Integer.parseInt(new String(Files.readAllBytes(stateFile), StandardCharsets.UTF_8).trim());
+        for (File runFile :
+                listRunFiles()) {
+            if (Integer.parseInt(runFile.getName()) >= numOfRuns) {
+                Files.delete(runFile.toPath());
             }
-            if (sortedList.charAt(sortedList.length() - 1) == ']') {
-                sortedList = sortedList.substring(0, sortedList.length() - 1);
+            else {
+                int runVersion = RunFileReader.readVersion(runFile);
+                if (runVersion != RunFileWriter.VERSION) {
+                    throw new IOException(runFile + " was written in run format " + runVersion
+                            + ", this version reads format " + RunFileWriter.VERSION);
+                }
             }
+        }
+        resumeFromRun(numOfRuns);
+    }
 
-            hundredKtermsMap.replace(key, hundredKtermsMap.get(key), sortedList);
+    /**
+     * Writes the temp Dictionary to the disk as a sorted run, the terms are written in lower case
+     * (the case variants of a term are merged, as the Dictionary keeps them) in their sorted order
+     * with their sorted postings, in the format of {@link RunFileWriter}
+     */
+    public void writeHashMapToDisk() {
+        TreeMap<String, PostingList> sortedTerms = new TreeMap<>();
+        for (Map.Entry<String, PostingList> termEntry :
+                hundredKtermsMap.entrySet()) {
+            sortedTerms.merge(termEntry.getKey().toLowerCase(), termEntry.getValue(), (v1, v2) -> {
+                v1.addAll(v2);
+                return v1;
+            });
+        }
+        try {
+            Files.createDirectories(Paths.get(pathToTempFolder));
+            try (RunFileWriter runWriter = new RunFileWriter(new File(pathToTempFolder + indexerNum.getAndIncrement()))) {
+                for (Map.Entry<String, PostingList> termEntry :
+                        sortedTerms.entrySet()) {
+                    runWriter.write(termEntry.getKey(), termEntry.getValue());
+                }
+            }
+            hundredKtermsMap = new HashMap<>();
+            usedBytes = 0;
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 
     /**
      * Gets 2 HashMaps
-     * and merges equal term and theris values
+     * and merges equal term and theris values,
+     * the bytes the merged terms take are counted as they grow
      *
      * @param hashMapToMergeFrom - the HashMap its value you want to merge
      * @param hashMapToMergeTo   - the HashMap you want to merge the terms into it
      */
-    private void mergeHashMapIntoHundred(HashMap<String, String> hashMapToMergeFrom, HashMap<String, String> hashMapToMergeTo) {
-        hashMapToMergeFrom.forEach(
-                (key, value) -> hashMapToMergeTo.merge(key, value, (v1, v2) -> v1 + ";" + v2)
-        );
+    private void mergeHashMapIntoHundred(HashMap<String, PostingList> hashMapToMergeFrom, HashMap<String, PostingList> hashMapToMergeTo) {
+        hashMapToMergeFrom.forEach((key, value) -> {
+            PostingList postings = hashMapToMergeTo.get(key);
+            if (postings == null) {
+                hashMapToMergeTo.put(key, value);
+                usedBytes += estimateTermBytes(key, value);
+            }
+            else {
+                long sizeBeforeMerge = postings.memorySize();
+                postings.addAll(value);
+                usedBytes += postings.memorySize() - sizeBeforeMerge;
+            }
+        });
     }
 
 
     /**
-     * Creates the Dictionary and postfiles from the saved Temp Dictionaries
+     * Creates the Dictionary and postfiles from the saved Temp Dictionaries.
+     * The terms are split to ranges of about the same number of terms by the sampled terms of the runs,
+     * a range per merge thread, and the ranges are merged side by side by {@link #mergeRange}.
+     * Every range writes its own post files and Dictionary fragment, the fragments are put together in the Dictionary.
      */
     public void createCorpusDictionary() {
-        indexerNum = new AtomicInteger(0);
-
+        if (resume) {
+            cleanPostFolder();
+        }
+        File[] runFiles = listRunFiles();
+        corpusDictionary = new HashMap<>();
+        long startTime = System.nanoTime();
 
         try {
-
-            while (Objects.requireNonNull(Paths.get(pathToTempFolder).toFile().listFiles()).length > 0) {
-                /**Read objects**/
-                File hashMapFile = Paths.get(pathToTempFolder + indexerNum.getAndIncrement()).toFile();
-                FileInputStream fileIn = new FileInputStream(hashMapFile);
-                ObjectInputStream objectOut = new ObjectInputStream(fileIn);
-                HashMap<String, String> newMap = (HashMap<String, String>) objectOut.readObject();
-                objectOut.close();
-                fileIn.close();
-                hashMapFile.delete();
-                System.out.println("Read HashMap with size: " + ((HashMap) newMap).size());
-                mergeReadMapIntoCorpus(newMap);
-//                mergeHashMapIntoHundred(newMap,corpusDictionary);
+            List<List<RunFileReader.Sample>> runSamples = new ArrayList<>();
+            for (File runFile :
+                    runFiles) {
+                runSamples.add(RunFileReader.readSamples(runFile));
             }
+            String[] rangeBounds = splitToRanges(runSamples, mergeThreads);
+            int numOfRanges = rangeBounds.length - 1;
+            System.out.println("Merging " + runFiles.length + " runs in " + numOfRanges + " ranges");
 
+            List<HashMap<String, String>> dictionaryFragments = new ArrayList<>();
+            if (numOfRanges == 1) {
+                dictionaryFragments.add(mergeRange(runFiles, runSamples, rangeBounds, 0));
+            }
+            else {
+                ForkJoinPool mergePool = new ForkJoinPool(numOfRanges);
+                try {
+                    List<ForkJoinTask<HashMap<String, String>>> rangeMerges = new ArrayList<>();
+                    for (int range = 0; range < numOfRanges; range++) {
+                        int rangeToMerge = range;
+                        rangeMerges.add(mergePool.submit(() -> mergeRange(runFiles, runSamples, rangeBounds, rangeToMerge)));
+                    }
+                    for (ForkJoinTask<HashMap<String, String>> rangeMerge :
+                            rangeMerges) {
+                        dictionaryFragments.add(rangeMerge.get());
+                    }
+                }
+                finally {
+                    mergePool.shutdown();
+                }
+            }
+            // the ranges do not share terms
+            for (HashMap<String, String> dictionaryFragment :
+                    dictionaryFragments) {
+                corpusDictionary.putAll(dictionaryFragment);
+            }
         } catch (Exception e) {
             e.printStackTrace();
+            return;
+        }
+        System.out.println("Merged " + runFiles.length + " runs to " + corpusDictionary.size() + " terms in "
+                + (System.nanoTime() - startTime) / 1000000 + " ms");
+
+        try {
+            DocRegistry.getInstance().writeToDisk(Paths.get(pathToPostFolder));
+            writeDictionaryToDisk();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
 
+        // The runs are kept until the posting files are complete so a failed merge can be resumed
+        for (File hashMapFile :
+                runFiles) {
+            hashMapFile.delete();
         }
+        new IngestManifest(pathToTempFolder).delete();
+        indexerNum = new AtomicInteger(0);
+        resume = false;
 
     }
 
     /**
-     * Gets the Read HashMap from Object file
-     * And Merging it into the Dictionary while writing the post files.
-     * @param newMap - the HashMap Read from the Object File
+     * Splits the terms of the runs to ranges by their sampled terms, every sample stands for the same number of terms
+     * @param runSamples - the samples of every run
+     * @param numOfRanges - the number of ranges to split to, there are less ranges if there are not enough samples
+     * @return the bounds of the ranges: range i is from bound i up to bound i+1 (not included),
+     * the first and the last bounds are null
      */
-    private void mergeReadMapIntoCorpus(HashMap<String,String> newMap)
-    {
-
-        ArrayList<String> sortedKeys = new ArrayList<String>(newMap.keySet());
-        Collections.sort(sortedKeys);
-        System.out.println("Sorted " + sortedKeys.size() + " HashMap keys");
-        int i = 0;
-        char docLetter = sortedKeys.get(0).toLowerCase().charAt(i++);
-        while(docLetter == ' ')
-        {
-            docLetter = sortedKeys.get(0).toLowerCase().charAt(i++);
-        }
-        int termIndexInSortedKeys = 0;
-        String corpusPathAndLineDelim = "#";
-        Path termFilePath = getFileForTerm(sortedKeys.get(0));
-        List<String> allTermsOfLetter = new ArrayList<>();
-        if(termFilePath.toFile().exists())
-        {
-            try{
-                allTermsOfLetter = Files.readAllLines(termFilePath);
-            }
-            catch (Exception e)
-            {
-                e.printStackTrace();
+    private static String[] splitToRanges(List<List<RunFileReader.Sample>> runSamples, int numOfRanges) {
+        ArrayList<String> sampledTerms = new ArrayList<>();
+        for (List<RunFileReader.Sample> samples :
+                runSamples) {
+            for (RunFileReader.Sample sample :
+                    samples) {
+                sampledTerms.add(sample.getTerm());
             }
         }
-
-        for (String termKey :
-                sortedKeys){
-
-            Path termFilePathTemp;
-            if(corpusDictionary.containsKey(termKey.toLowerCase()))
-            {
-                String valueFromCorpus = corpusDictionary.get(termKey.toLowerCase());
-                String[] splittedValue = valueFromCorpus.split(corpusPathAndLineDelim);
-                termFilePathTemp = Paths.get(splittedValue[0]);
-            }
-            else
-            {
-                termFilePathTemp = getFileForTerm(termKey);
+        Collections.sort(sampledTerms);
+        ArrayList<String> rangeBounds = new ArrayList<>();
+        rangeBounds.add(null);
+        for (int range = 1; range < numOfRanges; range++) {
+            int sampleIndex = range * sampledTerms.size() / numOfRanges;
+            String lastBound = rangeBounds.get(rangeBounds.size() - 1);
+            if (sampleIndex > 0 && (lastBound == null || sampledTerms.get(sampleIndex).compareTo(lastBound) > 0)) {
+                rangeBounds.add(sampledTerms.get(sampleIndex));
             }
+        }
+        rangeBounds.add(null);
+        return rangeBounds.toArray(new String[0]);
+    }
 
-            if (!(termFilePathTemp.toString().equalsIgnoreCase(termFilePath.toString()))) {
-                //the new termFile is not the same as last one
-                writePostFileOfLetter(termFilePath,allTermsOfLetter);
-                termFilePath = termFilePathTemp;
-                if (termFilePath.toFile().exists()) {
-                    try {
-
-                        System.out.println("Reading all lines from file: " + termFilePath.toFile().getPath());
-//                        allTermsOfLetter = new ArrayList<>();
-                        allTermsOfLetter = Files.readAllLines(termFilePath);
-                        termFilePath.toFile().delete();
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                    }
+    /**
+     * Merges the terms of a range from all the runs into post files of the range.
+     * Every run is read from its last sample before the range, through a priority queue by the term,
+     * the postings of a term in all the runs are merged and written once, at the end of the post file of its folder.
+     * @param runFiles - the runs
+     * @param runSamples - the samples of every run
+     * @param rangeBounds - the bounds of the ranges, as {@link #splitToRanges} returns them
+     * @param range - the index of the range to merge
+     * @return the Dictionary fragment of the range: term -> the post file and the offset of the term
+     * @throws IOException
+     */
+    private HashMap<String, String> mergeRange(File[] runFiles, List<List<RunFileReader.Sample>> runSamples,
+                                               String[] rangeBounds, int range) throws IOException {
+        String lowerBound = rangeBounds[range];
+        String upperBound = rangeBounds[range + 1];
+        // the ranges write to the same folders, so the post files of a range are named after it
+        String postFilePrefix = rangeBounds.length > 2 ? range + "_" : "";
+        HashMap<String, String> dictionaryFragment = new HashMap<>();
+
+        RunFileReader[] runReaders = new RunFileReader[runFiles.length];
+        // the runs by their current term and then by their index
+        PriorityQueue<Integer> runQueue = new PriorityQueue<>(runFiles.length + 1, (run1, run2) -> {
+            int termOrder = runReaders[run1].getTerm().compareTo(runReaders[run2].getTerm());
+            return termOrder != 0 ? termOrder : Integer.compare(run1, run2);
+        });
+        HashMap<String, PostFileWriter> postFileWriters = new HashMap<>();
+        try {
+            for (int runIndex = 0; runIndex < runFiles.length; runIndex++) {
+                runReaders[runIndex] = new RunFileReader(runFiles[runIndex], getStartOffset(runSamples.get(runIndex), lowerBound));
+                boolean hasTerm = runReaders[runIndex].next();
+                while (hasTerm && lowerBound != null && runReaders[runIndex].getTerm().compareTo(lowerBound) < 0) {
+                    hasTerm = runReaders[runIndex].next();
                 }
-                else {
-                    allTermsOfLetter = new ArrayList<>();
+                if (hasTerm && isBelow(runReaders[runIndex].getTerm(), upperBound)) {
+                    runQueue.add(runIndex);
                 }
             }
 
-//            if(termKey.toLowerCase().charAt(0) != docLetter)
-//            {//When the letter is changed, write the file and start again for the next letter
-//                System.out.println("Finished letter " + docLetter);
-//                writePostFileOfLetter(termFilePath,allTermsOfLetter);
-//                i = 0;
-//                docLetter = termKey.toLowerCase().charAt(i++);
-//                while(docLetter == ' ')
-//                {
-//                    docLetter = termKey.toLowerCase().charAt(i++);
-//                }
-//            }
+            while (!runQueue.isEmpty()) {
+                int runIndex = runQueue.poll();
+                String term = runReaders[runIndex].getTerm();
+                PostingList postings = runReaders[runIndex].getPostings();
+                advance(runIndex, runReaders, runQueue, upperBound);
+                while (!runQueue.isEmpty() && runReaders[runQueue.peek()].getTerm().equals(term)) {
+                    runIndex = runQueue.poll();
+                    postings.addAll(runReaders[runIndex].getPostings());
+                    advance(runIndex, runReaders, runQueue, upperBound);
+                }
 
-//            System.out.println("Strating letter " + termKey.toLowerCase().charAt(0));
-//            if(termKey.equalsIgnoreCase("abacus"))
-//            {
-//                System.out.println("CUS ABA!");
-//            }
-            if (corpusDictionary.containsKey(termKey.toLowerCase()))
-            {
-
-                int lineNumberInFile = Integer.parseInt(corpusDictionary.get(termKey.toLowerCase()).split(corpusPathAndLineDelim)[1]);
-                StringBuilder addNewHashMapLineToExisting = new StringBuilder();
-                if(allTermsOfLetter.size() == 0 || lineNumberInFile > allTermsOfLetter.size())
-                {
-                    System.out.println("Fuckkkk");
+                String folder = getFolderForTerm(term);
+                PostFileWriter postFileWriter = postFileWriters.get(folder);
+                if (postFileWriter == null) {
+                    postFileWriter = new PostFileWriter(Paths.get(pathToPostFolder + "/" + folder), postFilePrefix);
+                    postFileWriters.put(folder, postFileWriter);
                 }
-                addNewHashMapLineToExisting.append(allTermsOfLetter.get(lineNumberInFile-1)).append(";").append(newMap.get(termKey));
-                allTermsOfLetter.set(lineNumberInFile-1,addNewHashMapLineToExisting.toString());
-//                termFilePath = Paths.get(corpusDictionary.get(termKey.toLowerCase()).split(corpusPathAndLineDelim)[0]);
+                dictionaryFragment.put(term, postFileWriter.write(postings));
             }
-            else
-            {
-//                termFilePath = getFileForTerm(termKey);
-                allTermsOfLetter.add(newMap.get(termKey));
-                String pathAndLine = termFilePath.toString() + corpusPathAndLineDelim + allTermsOfLetter.size();
-                corpusDictionary.put(termKey.toLowerCase(),pathAndLine);
+        } finally {
+            for (RunFileReader runReader :
+                    runReaders) {
+                closeRun(runReader);
+            }
+            for (PostFileWriter postFileWriter :
+                    postFileWriters.values()) {
+                postFileWriter.close();
             }
         }
-        if(allTermsOfLetter.size() != 0)
-        {
-            writePostFileOfLetter(termFilePath,allTermsOfLetter);
+        return dictionaryFragment;
+    }
+
+    /**
+     * @return the offset of the last sample that is not after the bound, 0 (the first term) if there is none
+     */
+    private static long getStartOffset(List<RunFileReader.Sample> samples, String lowerBound) {
+        long startOffset = 0;
+        if (lowerBound == null) {
+            return startOffset;
+        }
+        for (RunFileReader.Sample sample :
+                samples) {
+            if (sample.getTerm().compareTo(lowerBound) > 0) {
+                break;
+            }
+            startOffset = sample.getOffset();
         }
+        return startOffset;
+    }
 
+    private static boolean isBelow(String term, String upperBound) {
+        return upperBound == null || term.compareTo(upperBound) < 0;
     }
 
     /**
-     * Gets a term from the hash map
-     * and returns the Path to the post file it suppose to be in
-     * @param termKey - the term to look for its path
-     * @return The path of the post file of termKey
+     * Moves a run to its next term, a run that has no more terms in the range is left out of the queue
      */
-    private Path getFileForTerm(String termKey)
-    {
-        if (termKey.length() > 0 && (termKey.charAt(0) == ' ' || termKey.charAt(0) == '/' || termKey.charAt(0) == '\'' || termKey.charAt(0) == '.'))
-        {
-            termKey = termKey.substring(1);
+    private static void advance(int runIndex, RunFileReader[] runReaders, PriorityQueue<Integer> runQueue, String upperBound) throws IOException {
+        if (runReaders[runIndex].next() && isBelow(runReaders[runIndex].getTerm(), upperBound)) {
+            runQueue.add(runIndex);
         }
-        String pathToTerm = pathToPostFolder+"/"+termKey.toLowerCase().charAt(0);
-        Path realPathOfTermFile = Paths.get(pathToTerm);
-        if(!realPathOfTermFile.toFile().exists())
-        {
-            try {
-                Files.createDirectories(realPathOfTermFile);
+    }
+
+    private static void closeRun(RunFileReader runReader) {
+        if (runReader == null) {
+            return;
+        }
+        try {
+            runReader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the Dictionary next to the posting files, each line is: term TAB postFile#offset,
+     * the offset is the byte the posting list of the term starts at in the post file
+     * the post file path is relative to the posting files folder so the folder can be moved
+     * @throws IOException
+     */
+    private void writeDictionaryToDisk() throws IOException {
+        Path postFolder = Paths.get(pathToPostFolder).toAbsolutePath().normalize();
+        ArrayList<String> sortedTerms = new ArrayList<>(corpusDictionary.keySet());
+        Collections.sort(sortedTerms);
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(postFolder.resolve(DICTIONARY_FILE_NAME).toFile()))) {
+            for (String term :
+                    sortedTerms) {
+                String pathAndLine = corpusDictionary.get(term);
+                int lineDelimIndex = pathAndLine.lastIndexOf('#');
+                Path postFile = Paths.get(pathAndLine.substring(0, lineDelimIndex)).toAbsolutePath().normalize();
+                writer.append(term).append('\t')
+                        .append(postFolder.relativize(postFile).toString().replace(File.separatorChar, '/'))
+                        .append(pathAndLine.substring(lineDelimIndex));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Reads a Dictionary written by {@link #createCorpusDictionary()}
+     * @param postFolder - the posting files folder the Dictionary was written to
+     * @return term -> path of the post file#offset, the paths are resolved against the given folder
+     * @throws IOException
+     */
+    public static HashMap<String, String> readDictionaryFromDisk(Path postFolder) throws IOException {
+        HashMap<String, String> dictionary = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(postFolder.resolve(DICTIONARY_FILE_NAME).toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tabIndex = line.indexOf('\t');
+                dictionary.put(line.substring(0, tabIndex), postFolder.resolve(line.substring(tabIndex + 1)).toString());
             }
-            catch (Exception e)
-            {
+        }
+        return dictionary;
+    }
+
+    /**
+     * @return the temp runs in the temp folder ordered by their index
+     */
+    private File[] listRunFiles() {
+        File[] runFiles = Paths.get(pathToTempFolder).toFile().listFiles(
+                (dir, name) -> !name.isEmpty() && name.chars().allMatch(Character::isDigit));
+        if (runFiles == null) {
+            return new File[0];
+        }
+        Arrays.sort(runFiles, Comparator.comparingInt(runFile -> Integer.parseInt(runFile.getName())));
+        return runFiles;
+    }
+
+    /**
+     * Deletes the posting files left by a merge that did not finish
+     */
+    private void cleanPostFolder() {
+        File[] postFiles = Paths.get(pathToPostFolder).toFile().listFiles();
+        if (postFiles == null) {
+            return;
+        }
+        for (File postFile :
+                postFiles) {
+            try {
+                FileUtils.forceDelete(postFile);
+            } catch (IOException e) {
                 e.printStackTrace();
             }
         }
-        int indexForFile = getIndexInFolder(Paths.get(pathToTerm));
-        Path pathToPost = Paths.get( pathToTerm + "/" +indexForFile);
-        return pathToPost;
     }
 
     /**
-     * Gets the path to the post file and the list of lines of this file
-     * and writes the lines to the file
-     *
-     * <B><I>If the file already exists it will overwrite it, since the lines will already contains the lines
-     * present in the file.</I></B>
-     * @param termFilePath - path to the post file
-     * @param allTermsOfLetter - lines which will be in the post file
+     * Gets a term and returns the folder of the post files it is written to:
+     * its first char in lower case, after a first char that is not recognized (space, '/', '\'', '.')
+     * @param termKey - the term to look for its folder
+     * @return the name of the folder of termKey
      */
-    private void writePostFileOfLetter(Path termFilePath, List<String> allTermsOfLetter)
+    private static String getFolderForTerm(String termKey)
     {
-        try {
-            if(!termFilePath.toFile().exists())
-            {
-                if(!termFilePath.getParent().toFile().exists())
-                {
-                    Files.createDirectories(termFilePath.getParent());
-                }
-                Files.createFile(termFilePath);
-            }
+        if (termKey.length() > 1 && (termKey.charAt(0) == ' ' || termKey.charAt(0) == '/' || termKey.charAt(0) == '\'' || termKey.charAt(0) == '.'))
+        {
+            termKey = termKey.substring(1);
+        }
+        return String.valueOf(termKey.toLowerCase().charAt(0));
+    }
 
-            BufferedWriter writeBuffer = new BufferedWriter(new FileWriter(termFilePath.toFile(),true));
-            for (String line :
-                    allTermsOfLetter) {
-                writeBuffer.append(line);
-                writeBuffer.newLine();
+    /**
+     * Reads a posting list of a post file
+     * @param postFile - a post file written by the Indexer
+     * @param offset - the offset of the list, as the Dictionary has it
+     * @return the posting list
+     * @throws IOException
+     */
+    public static PostingList readPostingList(Path postFile, long offset) throws IOException {
+        try (FileInputStream fileIn = new FileInputStream(postFile.toFile())) {
+            fileIn.getChannel().position(offset);
+            return PostingList.readFrom(new DataInputStream(new BufferedInputStream(fileIn)));
+        }
+    }
+
+    /**
+     * Reads all the posting lists of a post file
+     * @param postFile - a post file written by the Indexer
+     * @return offset -> the posting list that starts at it, in the order of the file
+     * @throws IOException
+     */
+    public static LinkedHashMap<Long, PostingList> readPostFile(Path postFile) throws IOException {
+        LinkedHashMap<Long, PostingList> postingLists = new LinkedHashMap<>();
+        long fileLength = postFile.toFile().length();
+        try (DataInputStream reader = new DataInputStream(new BufferedInputStream(new FileInputStream(postFile.toFile())))) {
+            long offset = 0;
+            while (offset < fileLength) {
+                PostingList postings = PostingList.readFrom(reader);
+                postingLists.put(offset, postings);
+                offset += postings.writtenSize();
             }
-            writeBuffer.close();
+        }
+        return postingLists;
+    }
 
+    /**
+     * Writes the posting lists of a folder one after the other, a new post file is started
+     * once the current one reaches MAX_POSTING_FILE_SIZE MB
+     */
+    private static class PostFileWriter {
+        private final Path folder;
+        private final String prefix;
+        private int fileIndex = 0;
+        private Path postFile;
+        private DataOutputStream writer;
+
+        private PostFileWriter(Path folder, String prefix) throws IOException {
+            this.folder = folder;
+            this.prefix = prefix;
+            Files.createDirectories(folder);
+            open();
         }
-        catch (Exception e)
-        {
-            e.printStackTrace();
+
+        private void open() throws IOException {
+            postFile = Paths.get(folder.toString() + "/" + prefix + fileIndex);
+            writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(postFile.toFile())));
         }
-    }
 
+        /**
+         * @return the post file and the offset the list was written at: path#offset
+         */
+        private String write(PostingList postings) throws IOException {
+            if (writer.size() >= MAX_POSTING_FILE_SIZE * MB_SIZE) {
+                writer.close();
+                fileIndex++;
+                open();
+            }
+            String pathAndOffset = postFile.toString() + "#" + writer.size();
+            postings.writeTo(writer);
+            return pathAndOffset;
+        }
+
+        private void close() {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
 
 //    /**
 //     * Gets the Read HashMap from Object file
@@ -509,42 +885,6 @@ public class Indexer implements Runnable {
 //
 //    }
 
-    /**
-     * Gets a term and lineNumber
-     * and return the line in the postFile of this term, its docList
-     * @param term -  a term to get its docList
-     * @param lineNumber - the line number of this term in the postFile
-     * @return The line containing the docList
-     */
-    private String getLineFromDic(String term,String lineNumber) {
-        char firstLetterForFolderName = term.charAt(0);
-        int line = Integer.parseInt(lineNumber);
-        String newFilePath = pathToPostFolder + firstLetterForFolderName;
-        Path pathForNewFile = null;
-        pathForNewFile = Paths.get(newFilePath);
-        try{
-            if(!Files.exists(pathForNewFile))
-            {
-                Path a = Files.createDirectories(pathForNewFile);
-            }
-            int fileIndex = getIndexInFolder(pathForNewFile);
-            Path postFileOfTerm = Paths.get(pathForNewFile.toFile().getPath() + "/" + fileIndex);
-//            if(!Files.exists(postFileOfTerm))
-//            {
-//                Path a = Files.createDirectories(postFileOfTerm);
-//            }
-            List<String> lines = Files.readAllLines(postFileOfTerm);
-            if(line == 0)
-                line = 1;
-            return lines.get(line-1);
-        }
-        catch (Exception e)
-        {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
     //            if(!corpusDictionary.containsKey(term))
 //            {
 //                String dfList = newMap.get(term);
@@ -569,164 +909,4 @@ public class Indexer implements Runnable {
 //            }
 
 
-    // read file one line at a time
-// replace line as you read the file and store updated lines in StringBuffer
-// overwrite the file with the new lines
-    public synchronized void readAndAppendToFile(String term,String fileNum,String lineIndex,String parsedData) {
-        try {
-            // input the (modified) file content to the StringBuffer "input"
-            String pathToFileForEdit = pathToPostFolder + term.toLowerCase().charAt(0) +"/" +fileNum;
-            BufferedReader file = new BufferedReader(new FileReader(pathToFileForEdit));
-            StringBuffer inputBuffer = new StringBuffer();
-            String line;
-            int lineIndexCounter = 0;
-            int parsedLineIndex = Integer.parseInt(lineIndex);
-
-
-            while ((line = file.readLine()) != null) {
-                lineIndexCounter++;
-                if(lineIndexCounter == parsedLineIndex)
-                {
-                    line = line +";" + parsedData;
-                }
-                inputBuffer.append(line);
-                inputBuffer.append('\n');
-            }
-            file.close();
-
-            // write the new string with the replaced line OVER the same file
-            FileOutputStream fileOut = new FileOutputStream(pathToFileForEdit);
-            fileOut.write(inputBuffer.toString().getBytes());
-            fileOut.close();
-
-        } catch (Exception e) {
-            e.printStackTrace();
-
-            System.out.println("Problem reading file.");
-        }
-    }
-
-    /**
-     *
-     * @param term
-     * @param docList
-     * @return
-     */
-    private synchronized String createAndWriteTheFile(String term, String docList){
-
-//        int currIndex = writeIndex.getAndIncrement();
-        boolean finishedWriting = false;
-        char firstLetterForFolderName = term.charAt(0);
-        String newFilePath = pathToPostFolder + firstLetterForFolderName;
-        String fileNumAndLineIndex = "";
-//        System.out.println("Posting File Path: " + newFilePath);
-        Path pathForNewFile = null;
-        try {
-            pathForNewFile = Paths.get(newFilePath);
-
-            if(!Files.exists(pathForNewFile))
-            {
-                Path a = Files.createDirectories(pathForNewFile);
-//            System.out.println(a.getFileName().toString());
-            }
-
-            //System.out.println(pathForNewFile.toString());
-
-            int indexFile = getIndexInFolder(pathForNewFile);
-            if(indexFile == -1)
-            {
-                throw new Exception("Could not find Dir");
-            }
-            newFilePath += "/"+indexFile;
-            pathForNewFile = Paths.get(newFilePath);
-
-            try
-            {
-
-                CharSequence fromStr = new StringBuffer(docList);
-//            double fileSize = getFileSizeMegaBytes(pathForNewFile.toFile());
-
-                BufferedWriter writeToPostFile = new BufferedWriter(new FileWriter(pathForNewFile.toFile(),true));
-                writeToPostFile.append(fromStr);
-                writeToPostFile.flush();
-                writeToPostFile.close();
-                finishedWriting = true;
-
-            }
-            catch (Exception e)
-            {
-                System.out.println("Could not load file");
-            }
-
-            if(finishedWriting)
-            {
-                List<String> linesInFile = Files.readAllLines(pathForNewFile);
-                fileNumAndLineIndex = pathForNewFile.getFileName().toString() + "#" + linesInFile.size();
-                return fileNumAndLineIndex;
-            }
-        }
-        catch (Exception e)
-        {
-            System.out.println("Could not Parse the path: "+ newFilePath);
-        }
-        return null;
-
-    }
-
-    /**
-     * Gets a path to folder of posting files
-     * searches for a file with size less than MAX_POSTING_FILE_SIZE MB
-     * if it finds it, than this file index is the returned value
-     * else it returns the next number for a new File (if there are 5 files in the directory, it returns 6)
-     * @param pathToFolder - folder of posting files (a,b,c...etc')
-     * @return the index of the file needs to be written
-     */
-    private synchronized int getIndexInFolder(Path pathToFolder) {
-        File dir = pathToFolder.toFile();
-        File[] directoryListing = dir.listFiles();
-        int indexOfFile = -1, numOfFilesInDir = 0;
-        try {
-            if (directoryListing != null) {
-                for (File child : directoryListing) {
-                    if (getFileSizeMegaBytes(child) < MAX_POSTING_FILE_SIZE)
-                    {
-                        String indexStr = child.getName();
-                        indexOfFile = Integer.parseInt(indexStr);
-                    }
-                    numOfFilesInDir++;
-                }
-                if(indexOfFile==-1)
-                {
-                    indexOfFile=numOfFilesInDir;
-                }
-            } else {
-                // Handle the case where dir is not really a directory.
-                // Checking dir.isDirectory() above would not be sufficient
-                // to avoid race conditions with another process that deletes
-                // directories.
-                if(dir.isDirectory())
-                {
-                    return 0;
-                }
-                else
-                {
-                    throw new Exception("There is no Dir");
-                }
-            }
-        }
-        catch (Exception e)
-        {
-            System.out.println(pathToFolder.toString());
-            e.printStackTrace();
-        }
-
-        return indexOfFile;
-    }
-
-    private double getFileSizeMegaBytes(File file) {
-        double a = (double) file.length() / (KB_SIZE * KB_SIZE);
-        return a;
-    }
-
-
 }
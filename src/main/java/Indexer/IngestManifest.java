@@ -0,0 +1,254 @@
+package Indexer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The manifest of an indexing run, kept in the temp dictionaries folder so a run that died can be resumed.
+ * It is an append only file, every checkpoint appends the lines:
+ * FILE#path - a corpus file whose documents are all inside the completed temp runs
+ * RUN#index - a temp run that was completely written by {@link Indexer#writeHashMapToDisk()}
+ * CHECKPOINT#numOfRuns#numOfDocs - closes the checkpoint, lines after the last CHECKPOINT are ignored
+ * The doc ids table of {@link DocRegistry} is saved next to it on every checkpoint,
+ * so is every {@link CheckpointState} that was added, to the file state.stateName-numOfDocs.
+ */
+public class IngestManifest {
+
+    public static final String MANIFEST_FILE_NAME = "manifest";
+    private static final String delim = "#";
+    private static final String FILE = "FILE";
+    private static final String RUN = "RUN";
+    private static final String CHECKPOINT = "CHECKPOINT";
+    private static final String STATE_FILE_PREFIX = "state.";
+
+    private Path folder;
+    private Set<String> ingestedFiles;
+    private int numOfRuns;
+    private int numOfDocs;
+    private List<CheckpointState> states = new ArrayList<>();
+
+    /**
+     * State of the ingest that has to be restored with the temp runs when resuming,
+     * it is written on every checkpoint while the reading is held
+     */
+    public interface CheckpointState {
+        /**
+         * @return the name of the state files in the temp folder
+         */
+        String getStateName();
+
+        void writeState(Path stateFile) throws IOException;
+
+        /**
+         * Replaces the current state with the state of the file
+         */
+        void readState(Path stateFile) throws IOException;
+    }
+
+    public IngestManifest(String tempFolder) {
+        this.folder = new File(tempFolder).toPath();
+        this.ingestedFiles = new HashSet<>();
+    }
+
+    /**
+     * Adds a state that is saved on every checkpoint and restored on resume
+     * @param state - the state to save
+     */
+    public void addState(CheckpointState state) {
+        states.add(state);
+    }
+
+    /**
+     * Reads the last complete checkpoint of the manifest, a missing manifest is an empty one
+     * @throws IOException
+     */
+    public void load() throws IOException {
+        ingestedFiles = new HashSet<>();
+        numOfRuns = 0;
+        numOfDocs = 0;
+        File manifestFile = folder.resolve(MANIFEST_FILE_NAME).toFile();
+        if (!manifestFile.exists()) {
+            return;
+        }
+        List<String> filesOfCheckpoint = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(manifestFile))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(FILE + delim)) {
+                    filesOfCheckpoint.add(line.substring(FILE.length() + 1));
+                }
+                else if (line.startsWith(CHECKPOINT + delim)) {
+                    String[] checkpoint = line.split(delim);
+                    numOfRuns = Integer.parseInt(checkpoint[1]);
+                    numOfDocs = Integer.parseInt(checkpoint[2]);
+                    ingestedFiles.addAll(filesOfCheckpoint);
+                    filesOfCheckpoint.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new manifest, the old one, its doc ids table and the temp runs a build that died left are deleted
+     * @throws IOException
+     */
+    public void reset() throws IOException {
+        Files.createDirectories(folder);
+        deleteRunFiles(0);
+        Files.deleteIfExists(folder.resolve(MANIFEST_FILE_NAME));
+        Files.deleteIfExists(folder.resolve(DocRegistry.DOCS_FILE_NAME));
+        deleteStateFiles(-1);
+        ingestedFiles = new HashSet<>();
+        numOfRuns = 0;
+        numOfDocs = 0;
+    }
+
+    /**
+     * Records a checkpoint, must be called only when all the documents of the given files are inside completed runs
+     * @param filesDone - corpus files that were completed since the last checkpoint
+     * @param totalRuns - the number of completed temp runs, runs 0 to totalRuns-1
+     * @throws IOException
+     */
+    public synchronized void checkpoint(Collection<String> filesDone, int totalRuns) throws IOException {
+        Files.createDirectories(folder);
+        DocRegistry registry = DocRegistry.getInstance();
+        Path tempRegistry = folder.resolve(DocRegistry.DOCS_FILE_NAME + ".tmp");
+        registry.writeToDisk(folder, tempRegistry.getFileName().toString());
+        Files.move(tempRegistry, folder.resolve(DocRegistry.DOCS_FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+        int checkpointDocs = registry.size();
+        for (CheckpointState state :
+                states) {
+            state.writeState(getStateFile(state.getStateName(), checkpointDocs));
+        }
+
+        FileOutputStream manifestOut = new FileOutputStream(folder.resolve(MANIFEST_FILE_NAME).toFile(), true);
+        try (Writer writer = new OutputStreamWriter(manifestOut, StandardCharsets.UTF_8)) {
+            for (String file :
+                    filesDone) {
+                writer.write(FILE + delim + file + "\n");
+            }
+            for (int run = numOfRuns; run < totalRuns; run++) {
+                writer.write(RUN + delim + run + "\n");
+            }
+            writer.write(CHECKPOINT + delim + totalRuns + delim + checkpointDocs + "\n");
+            writer.flush();
+            manifestOut.getFD().sync();
+        }
+        ingestedFiles.addAll(filesDone);
+        numOfRuns = totalRuns;
+        numOfDocs = checkpointDocs;
+        deleteStateFiles(checkpointDocs);
+    }
+
+    private Path getStateFile(String stateName, int checkpointDocs) {
+        return folder.resolve(STATE_FILE_PREFIX + stateName + "-" + checkpointDocs);
+    }
+
+    /**
+     * Deletes the state files of older checkpoints
+     * @param checkpointDocs - the number of documents of the checkpoint whose files are kept, -1 to delete all
+     * @throws IOException
+     */
+    private void deleteStateFiles(int checkpointDocs) throws IOException {
+        File[] tempFiles = folder.toFile().listFiles();
+        if (tempFiles == null) {
+            return;
+        }
+        for (File tempFile :
+                tempFiles) {
+            String name = tempFile.getName();
+            if (name.startsWith(STATE_FILE_PREFIX) && !name.endsWith("-" + checkpointDocs)) {
+                Files.delete(tempFile.toPath());
+            }
+        }
+    }
+
+    /**
+     * Prepares a resume from the last checkpoint:
+     * deletes temp runs that were written after it and loads the doc ids it saved
+     * @throws IOException
+     */
+    public void restore() throws IOException {
+        deleteRunFiles(numOfRuns);
+        DocRegistry.getInstance().clear();
+        if (folder.resolve(DocRegistry.DOCS_FILE_NAME).toFile().exists()) {
+            DocRegistry.getInstance().readFromDisk(folder, numOfDocs);
+        }
+        for (CheckpointState state :
+                states) {
+            Path stateFile = getStateFile(state.getStateName(), numOfDocs);
+            if (stateFile.toFile().exists()) {
+                state.readState(stateFile);
+            }
+        }
+    }
+
+    /**
+     * Deletes the temp runs from the given run on
+     * @throws IOException
+     */
+    private void deleteRunFiles(int fromRun) throws IOException {
+        File[] tempFiles = folder.toFile().listFiles();
+        if (tempFiles == null) {
+            return;
+        }
+        for (File tempFile :
+                tempFiles) {
+            if (isRunFile(tempFile) && Integer.parseInt(tempFile.getName()) >= fromRun) {
+                Files.delete(tempFile.toPath());
+            }
+        }
+    }
+
+    private boolean isRunFile(File tempFile) {
+        String name = tempFile.getName();
+        if (name.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean isIngested(File corpusFile) {
+        return ingestedFiles.contains(corpusFile.getAbsolutePath());
+    }
+
+    public int getNumOfRuns() {
+        return numOfRuns;
+    }
+
+    public int getNumOfIngestedFiles() {
+        return ingestedFiles.size();
+    }
+
+    /**
+     * Deletes the manifest once the index is complete
+     */
+    public void delete() {
+        try {
+            Files.deleteIfExists(folder.resolve(MANIFEST_FILE_NAME));
+            Files.deleteIfExists(folder.resolve(DocRegistry.DOCS_FILE_NAME));
+            deleteStateFiles(-1);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
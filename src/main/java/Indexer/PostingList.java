@@ -0,0 +1,382 @@
+package Indexer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The postings of a term, kept as bytes from the parser batches to the posting files.
+ * A posting is the gap from the doc id of the posting before it and the term frequency,
+ * both written as variable byte ints: 7 bits in a byte, the high bit is set on every byte but the last.
+ * The doc ids of a list that is appended in order are increasing, the first gap is the doc id itself.
+ * A list that is appended out of order (batches of parsers that ran side by side) is kept as segments,
+ * every segment starts again from doc id 0, {@link #sort()} turns it back to a single segment.
+ * A list is always written sorted: number of postings, number of bytes and the bytes, the first two as variable byte ints.
+ */
+public class PostingList implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int[] NO_SEGMENTS = new int[0];
+    // the object, its fields and the headers of its arrays
+    private static final int OBJECT_OVERHEAD = 72;
+
+    private byte[] bytes;
+    private int length;
+    private int size;
+    private int lastDocId = -1;
+    private int[] segmentStarts = NO_SEGMENTS;
+    private int numOfSegmentStarts;
+
+    public PostingList() {
+        bytes = new byte[INITIAL_CAPACITY];
+    }
+
+    private PostingList(byte[] bytes, int length, int size) {
+        this.bytes = bytes;
+        this.length = length;
+        this.size = size;
+    }
+
+    /**
+     * Adds a posting at the end of the list, a doc id that is not larger than the last one starts a segment
+     * @param docId - the id the {@link DocRegistry} gave the Document
+     * @param tf - the frequency of the term in the Document
+     */
+    public void add(int docId, int tf) {
+        int previousDocId = lastDocId;
+        if (size > 0 && docId <= lastDocId) {
+            startSegment();
+            previousDocId = 0;
+        }
+        else if (size == 0) {
+            previousDocId = 0;
+        }
+        ensureCapacity(10);
+        length = writeVarInt(bytes, length, docId - previousDocId);
+        length = writeVarInt(bytes, length, tf);
+        lastDocId = docId;
+        size++;
+    }
+
+    /**
+     * Appends the postings of another list, the bytes are copied as they are but the first gap
+     * @param other - a list that is not used after it was appended
+     */
+    public void addAll(PostingList other) {
+        if (other.size == 0) {
+            return;
+        }
+        int otherStart = 0;
+        int shift = length;
+        if (size > 0) {
+            int firstDocId = readVarInt(other.bytes, 0);
+            if (firstDocId > lastDocId) {
+                // the other list goes on from the last posting, only its first gap is written again
+                otherStart = varIntLength(firstDocId);
+                ensureCapacity(5);
+                length = writeVarInt(bytes, length, firstDocId - lastDocId);
+                shift = length - otherStart;
+            }
+            else {
+                startSegment();
+            }
+        }
+        ensureCapacity(other.length - otherStart);
+        System.arraycopy(other.bytes, otherStart, bytes, length, other.length - otherStart);
+        length += other.length - otherStart;
+        for (int segment = 0; segment < other.numOfSegmentStarts; segment++) {
+            addSegmentStart(other.segmentStarts[segment] + shift);
+        }
+        size += other.size;
+        lastDocId = other.lastDocId;
+    }
+
+    /**
+     * Sorts the postings by the doc id if the list has more than one segment
+     */
+    public void sort() {
+        if (numOfSegmentStarts == 0) {
+            return;
+        }
+        long[] packedPostings = new long[size];
+        int position = 0;
+        int segment = 0;
+        int docId = 0;
+        for (int i = 0; i < size; i++) {
+            if (segment < numOfSegmentStarts && position == segmentStarts[segment]) {
+                docId = 0;
+                segment++;
+            }
+            long gapAndPosition = readVarIntAt(bytes, position);
+            docId += (int) (gapAndPosition >>> 32);
+            long tfAndPosition = readVarIntAt(bytes, (int) gapAndPosition);
+            position = (int) tfAndPosition;
+            packedPostings[i] = ((long) docId << 32) | (tfAndPosition >>> 32);
+        }
+        Arrays.sort(packedPostings);
+        byte[] sortedBytes = new byte[length + 10];
+        int sortedLength = 0;
+        int previousDocId = 0;
+        for (long packedPosting : packedPostings) {
+            if (sortedLength + 10 > sortedBytes.length) {
+                sortedBytes = Arrays.copyOf(sortedBytes, sortedBytes.length * 2);
+            }
+            int sortedDocId = (int) (packedPosting >>> 32);
+            sortedLength = writeVarInt(sortedBytes, sortedLength, sortedDocId - previousDocId);
+            sortedLength = writeVarInt(sortedBytes, sortedLength, (int) packedPosting);
+            previousDocId = sortedDocId;
+        }
+        bytes = sortedBytes;
+        length = sortedLength;
+        lastDocId = previousDocId;
+        segmentStarts = NO_SEGMENTS;
+        numOfSegmentStarts = 0;
+    }
+
+    /**
+     * @param idOffset - the number to add to every doc id
+     * @return a sorted copy of the list with the offset added to the doc ids, only the first gap changes
+     */
+    public PostingList shiftDocIds(int idOffset) {
+        sort();
+        if (size == 0 || idOffset == 0) {
+            return copy();
+        }
+        int firstDocId = readVarInt(bytes, 0);
+        int firstLength = varIntLength(firstDocId);
+        int shiftedFirstLength = varIntLength(firstDocId + idOffset);
+        byte[] shiftedBytes = new byte[length - firstLength + shiftedFirstLength];
+        writeVarInt(shiftedBytes, 0, firstDocId + idOffset);
+        System.arraycopy(bytes, firstLength, shiftedBytes, shiftedFirstLength, length - firstLength);
+        PostingList shifted = new PostingList(shiftedBytes, shiftedBytes.length, size);
+        shifted.lastDocId = lastDocId + idOffset;
+        return shifted;
+    }
+
+    private PostingList copy() {
+        PostingList copy = new PostingList(Arrays.copyOf(bytes, Math.max(length, 1)), length, size);
+        copy.lastDocId = lastDocId;
+        return copy;
+    }
+
+    /**
+     * Decodes the list into arrays, in the order the postings were added
+     * @param docIds - gets the doc ids, at least size() long
+     * @param termFrequencies - gets the term frequencies, at least size() long
+     */
+    public void decode(int[] docIds, int[] termFrequencies) {
+        int position = 0;
+        int segment = 0;
+        int docId = 0;
+        for (int i = 0; i < size; i++) {
+            if (segment < numOfSegmentStarts && position == segmentStarts[segment]) {
+                docId = 0;
+                segment++;
+            }
+            long gapAndPosition = readVarIntAt(bytes, position);
+            docId += (int) (gapAndPosition >>> 32);
+            long tfAndPosition = readVarIntAt(bytes, (int) gapAndPosition);
+            position = (int) tfAndPosition;
+            docIds[i] = docId;
+            termFrequencies[i] = (int) (tfAndPosition >>> 32);
+        }
+    }
+
+    /**
+     * @return the doc ids, in the order the postings were added
+     */
+    public int[] getDocIds() {
+        int[] docIds = new int[size];
+        decode(docIds, new int[size]);
+        return docIds;
+    }
+
+    /**
+     * @return the term frequencies, in the order the postings were added
+     */
+    public int[] getTermFrequencies() {
+        int[] termFrequencies = new int[size];
+        decode(new int[size], termFrequencies);
+        return termFrequencies;
+    }
+
+    /**
+     * @return the number of postings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of bytes the postings take
+     */
+    public int byteSize() {
+        return length;
+    }
+
+    /**
+     * @return the estimated number of bytes the list takes in the heap, with the free room of its arrays
+     */
+    public long memorySize() {
+        return OBJECT_OVERHEAD + bytes.length + 4L * segmentStarts.length;
+    }
+
+    /**
+     * Writes the list sorted
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        sort();
+        writeVarInt(out, size);
+        writeVarInt(out, length);
+        out.write(bytes, 0, length);
+    }
+
+    /**
+     * @return the number of bytes {@link #writeTo(DataOutput)} writes for a sorted list
+     */
+    public int writtenSize() {
+        return varIntLength(size) + varIntLength(length) + length;
+    }
+
+    /**
+     * Reads a list written by {@link #writeTo(DataOutput)}
+     */
+    public static PostingList readFrom(DataInput in) throws IOException {
+        int size = readVarInt(in);
+        int length = readVarInt(in);
+        byte[] bytes = new byte[Math.max(length, 1)];
+        in.readFully(bytes, 0, length);
+        PostingList postingList = new PostingList(bytes, length, size);
+        postingList.lastDocId = postingList.findLastDocId();
+        return postingList;
+    }
+
+    private int findLastDocId() {
+        int docId = size == 0 ? -1 : 0;
+        int position = 0;
+        for (int i = 0; i < size; i++) {
+            long gapAndPosition = readVarIntAt(bytes, position);
+            docId += (int) (gapAndPosition >>> 32);
+            position = (int) readVarIntAt(bytes, (int) gapAndPosition);
+        }
+        return docId;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        writeTo(out);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException {
+        PostingList postingList = readFrom(in);
+        bytes = postingList.bytes;
+        length = postingList.length;
+        size = postingList.size;
+        lastDocId = postingList.lastDocId;
+        segmentStarts = NO_SEGMENTS;
+    }
+
+    /**
+     * @return the postings as the old text doc list: "docId#tf;docId#tf..."
+     */
+    @Override
+    public String toString() {
+        int[] docIds = new int[size];
+        int[] termFrequencies = new int[size];
+        decode(docIds, termFrequencies);
+        StringBuilder docList = new StringBuilder(size * 8);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                docList.append(';');
+            }
+            docList.append(docIds[i]).append('#').append(termFrequencies[i]);
+        }
+        return docList.toString();
+    }
+
+    private void startSegment() {
+        addSegmentStart(length);
+    }
+
+    private void addSegmentStart(int start) {
+        if (numOfSegmentStarts == segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, Math.max(4, segmentStarts.length * 2));
+        }
+        segmentStarts[numOfSegmentStarts++] = start;
+    }
+
+    private void ensureCapacity(int extraBytes) {
+        if (length + extraBytes > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(length + extraBytes, bytes.length * 2));
+        }
+    }
+
+    static int writeVarInt(byte[] target, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            target[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        target[position++] = (byte) value;
+        return position;
+    }
+
+    static int readVarInt(byte[] source, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = source[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * @return the int at the position in the high 32 bits and the position after it in the low 32 bits
+     */
+    private static long readVarIntAt(byte[] source, int position) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = source[position++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return ((long) value << 32) | position;
+    }
+
+    static int varIntLength(int value) {
+        int numOfBytes = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            numOfBytes++;
+        }
+        return numOfBytes;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
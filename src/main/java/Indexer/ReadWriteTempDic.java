@@ -1,13 +1,11 @@
 package Indexer;
 
 
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.concurrent.Semaphore;
@@ -37,7 +35,7 @@ public class ReadWriteTempDic {
     }
 
 //    public boolean writeToDic(ConcurrentHashMap<String,String> map,String prsrName)
-    public boolean writeToDic(HashMap<String,String> map, String prsrName)
+    public boolean writeToDic(HashMap<String,PostingList> map, String prsrName)
     {
         writeIndexSemaphore.acquireUninterruptibly();
         int currIndex = writeIndex.getAndIncrement();
@@ -55,10 +53,14 @@ public class ReadWriteTempDic {
                 Files.createFile(pathForNewFile);
             }
 
-            ObjectOutputStream writeToDicFile = new ObjectOutputStream(new FileOutputStream(pathForNewFile.toFile()));
-            writeToDicFile.writeObject(map);
-            writeToDicFile.flush();
-            writeToDicFile.close();
+            ArrayList<String> sortedTerms = new ArrayList<>(map.keySet());
+            Collections.sort(sortedTerms);
+            try (RunFileWriter writeToDicFile = new RunFileWriter(pathForNewFile.toFile())) {
+                for (String term :
+                        sortedTerms) {
+                    writeToDicFile.write(term, map.get(term));
+                }
+            }
             fileWritten.add(currIndex);
             //System.out.println("Written " + currIndex);
         }
@@ -76,7 +78,7 @@ public class ReadWriteTempDic {
     }
 
 //    public ConcurrentHashMap<String,String> readFromDic()
-    public HashMap<String,String> readFromDic()
+    public HashMap<String,PostingList> readFromDic()
     {
         readIndexSemaphore.acquireUninterruptibly();
         int currIndex = readIndex.getAndIncrement();
@@ -97,15 +99,18 @@ public class ReadWriteTempDic {
 
         try{
 
-            ObjectInputStream readDicObjInptStrm = new ObjectInputStream(new FileInputStream(pathForNewFile.toFile()));
-            Object mapReadFromFile = readDicObjInptStrm.readObject();
-            readDicObjInptStrm.close();
+            HashMap<String,PostingList> mapReadFromFile = new HashMap<>();
+            try (RunFileReader readDicFile = new RunFileReader(pathForNewFile.toFile())) {
+                while (readDicFile.next()) {
+                    mapReadFromFile.put(readDicFile.getTerm(), readDicFile.getPostings());
+                }
+            }
             while(!pathForNewFile.toFile().delete()) {
             }
             fileWritten.remove(currIndex);
             System.out.println("Read " + currIndex);
 //            return (ConcurrentHashMap<String,String>)mapReadFromFile;
-            return (HashMap<String,String>)mapReadFromFile;
+            return mapReadFromFile;
         }
         catch (Exception e)
         {
@@ -0,0 +1,180 @@
+package Indexer;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a temp run written by {@link RunFileWriter} a term at a time, the run is never loaded as a whole.
+ * The cursor starts before the first term, {@link #next()} moves it to the next term.
+ */
+public class RunFileReader implements Closeable {
+
+    private final DataInputStream reader;
+    private final File runFile;
+    private byte[] termBytes = new byte[64];
+    private String term;
+    private PostingList postings;
+    private boolean ended;
+
+    /**
+     * Opens a run and checks its format
+     * @param runFile - a file written by {@link RunFileWriter}
+     * @throws IOException if the file is not a run or its version is not supported
+     */
+    public RunFileReader(File runFile) throws IOException {
+        this(runFile, 0);
+    }
+
+    /**
+     * Opens a run at a term and checks its format
+     * @param runFile - a file written by {@link RunFileWriter}
+     * @param offset - the offset of a term record, as a {@link Sample} has it, 0 for the first term
+     * @throws IOException if the file is not a run or its version is not supported
+     */
+    public RunFileReader(File runFile, long offset) throws IOException {
+        this.runFile = runFile;
+        FileInputStream fileIn = new FileInputStream(runFile);
+        try {
+            checkHeader(new DataInputStream(fileIn), runFile);
+            if (offset > RunFileWriter.HEADER_SIZE) {
+                fileIn.getChannel().position(offset);
+            }
+        } catch (IOException e) {
+            fileIn.close();
+            throw e;
+        }
+        reader = new DataInputStream(new BufferedInputStream(fileIn, RunFileWriter.BUFFER_SIZE));
+    }
+
+    /**
+     * Reads the sampled terms of a run
+     * @param runFile - a file written by {@link RunFileWriter}
+     * @return the samples in the order of their terms
+     * @throws IOException if the file is not a complete run or its version is not supported
+     */
+    public static List<Sample> readSamples(File runFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(runFile, "r")) {
+            checkHeader(file, runFile);
+            file.seek(file.length() - 8);
+            long samplesOffset = file.readLong();
+            if (samplesOffset < RunFileWriter.HEADER_SIZE || samplesOffset > file.length() - 8) {
+                throw new IOException(runFile + " was not completely written");
+            }
+            file.seek(samplesOffset);
+            DataInputStream samplesIn = new DataInputStream(new BufferedInputStream(Channels.newInputStream(file.getChannel())));
+            int numOfSamples = PostingList.readVarInt(samplesIn);
+            List<Sample> samples = new ArrayList<>(numOfSamples);
+            for (int sample = 0; sample < numOfSamples; sample++) {
+                byte[] termBytes = new byte[PostingList.readVarInt(samplesIn)];
+                samplesIn.readFully(termBytes);
+                samples.add(new Sample(new String(termBytes, StandardCharsets.UTF_8), samplesIn.readLong()));
+            }
+            return samples;
+        }
+    }
+
+    /**
+     * @param runFile - a temp run
+     * @return the version of the format the run was written in
+     * @throws IOException if the file is not a run
+     */
+    public static int readVersion(File runFile) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(runFile))) {
+            if (in.readInt() != RunFileWriter.MAGIC) {
+                throw new IOException(runFile + " is not a run file");
+            }
+            return in.readInt();
+        }
+    }
+
+    private static void checkHeader(DataInput in, File runFile) throws IOException {
+        if (in.readInt() != RunFileWriter.MAGIC) {
+            throw new IOException(runFile + " is not a run file");
+        }
+        int version = in.readInt();
+        if (version != RunFileWriter.VERSION) {
+            throw new IOException(runFile + " is a run of version " + version + ", version " + RunFileWriter.VERSION + " is supported");
+        }
+    }
+
+    /**
+     * Moves to the next term of the run
+     * @return false if the run has no more terms
+     * @throws IOException if the run was not completely written
+     */
+    public boolean next() throws IOException {
+        if (ended) {
+            return false;
+        }
+        int termLength;
+        try {
+            termLength = PostingList.readVarInt(reader) - 1;
+        } catch (EOFException e) {
+            throw new IOException(runFile + " was not completely written", e);
+        }
+        if (termLength < 0) {
+            ended = true;
+            term = null;
+            postings = null;
+            return false;
+        }
+        if (termLength > termBytes.length) {
+            termBytes = new byte[Math.max(termLength, termBytes.length * 2)];
+        }
+        reader.readFully(termBytes, 0, termLength);
+        term = new String(termBytes, 0, termLength, StandardCharsets.UTF_8);
+        postings = PostingList.readFrom(reader);
+        return true;
+    }
+
+    /**
+     * @return the current term
+     */
+    public String getTerm() {
+        return term;
+    }
+
+    /**
+     * @return the postings of the current term
+     */
+    public PostingList getPostings() {
+        return postings;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * A sampled term of a run and the offset of its record
+     */
+    public static class Sample {
+        private final String term;
+        private final long offset;
+
+        private Sample(String term, long offset) {
+            this.term = term;
+            this.offset = offset;
+        }
+
+        public String getTerm() {
+            return term;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package Indexer;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * Writes a temp run of the Indexer: its terms in sorted order, each with its postings.
+ * The file starts with the magic number and the version of the format, then a record per term:
+ * the length of the term in UTF-8 bytes plus 1, the bytes of the term and its postings as {@link PostingList#writeTo},
+ * the length and the postings header as variable byte ints.
+ * The run ends with a 0 where the length of the next term would be, a run without it was not completely written.
+ * Every {@link #SAMPLE_INTERVAL}th term is sampled with the offset of its record, the samples follow the end of the run:
+ * their number, then the length, the bytes and the offset of every sample, and the file ends with the offset of the samples.
+ * The samples let a merge split the terms of the runs to balanced ranges and start reading a run at its range.
+ * @see RunFileReader
+ */
+public class RunFileWriter implements Closeable {
+
+    public static final int MAGIC = 0x49525255;
+    public static final int VERSION = 2;
+    public static final int SAMPLE_INTERVAL = 64;
+    static final int HEADER_SIZE = 8;
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataOutputStream writer;
+    private final ArrayList<byte[]> sampleTerms = new ArrayList<>();
+    private final ArrayList<Long> sampleOffsets = new ArrayList<>();
+    private long position = HEADER_SIZE;
+    private String lastTerm;
+    private int numOfTerms;
+
+    /**
+     * Creates the run file, an existing file is overwritten
+     * @param runFile - the file of the run
+     * @throws IOException
+     */
+    public RunFileWriter(File runFile) throws IOException {
+        writer = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), BUFFER_SIZE));
+        writer.writeInt(MAGIC);
+        writer.writeInt(VERSION);
+    }
+
+    /**
+     * Writes the next term of the run
+     * @param term - a term that comes after the last term written
+     * @param postings - the postings of the term, they are written sorted
+     * @throws IOException
+     */
+    public void write(String term, PostingList postings) throws IOException {
+        if (lastTerm != null && lastTerm.compareTo(term) >= 0) {
+            throw new IllegalArgumentException("The terms of a run must be sorted: " + term + " after " + lastTerm);
+        }
+        byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+        if (numOfTerms % SAMPLE_INTERVAL == 0) {
+            sampleTerms.add(termBytes);
+            sampleOffsets.add(position);
+        }
+        PostingList.writeVarInt(writer, termBytes.length + 1);
+        writer.write(termBytes);
+        postings.writeTo(writer);
+        position += PostingList.varIntLength(termBytes.length + 1) + termBytes.length + postings.writtenSize();
+        lastTerm = term;
+        numOfTerms++;
+    }
+
+    /**
+     * @return the number of terms written so far
+     */
+    public int getNumOfTerms() {
+        return numOfTerms;
+    }
+
+    /**
+     * Ends the run, writes the samples and closes the file
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.writeByte(0);
+            long samplesOffset = position + 1;
+            PostingList.writeVarInt(writer, sampleTerms.size());
+            for (int sample = 0; sample < sampleTerms.size(); sample++) {
+                PostingList.writeVarInt(writer, sampleTerms.get(sample).length);
+                writer.write(sampleTerms.get(sample));
+                writer.writeLong(sampleOffsets.get(sample));
+            }
+            writer.writeLong(samplesOffset);
+        } finally {
+            writer.close();
+        }
+    }
+}
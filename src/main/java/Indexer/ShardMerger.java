@@ -0,0 +1,163 @@
+package Indexer;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Merges the partial indices written by {@link readFile.IndexShard} into a single index.
+ * The documents of shard i get ids after all the documents of the shards before it,
+ * the doc lists of every shard are shifted to the new ids and written as temp runs,
+ * then the runs are merged by {@link Indexer#createCorpusDictionary()} as if a single process indexed the whole corpus.
+ * A run is written once its terms take the memory budget of the Indexer,
+ * the post files of the shards are streamed a list at a time so only the terms of the current run are in memory.
+ * The index is written to indexPath/postingFiles.
+ * usage: ShardMerger indexPath numOfShards
+ */
+public class ShardMerger {
+
+    public static final String POSTING_FOLDER_NAME = "postingFiles";
+    public static final String TEMP_FOLDER_NAME = "dicTemp";
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: ShardMerger indexPath numOfShards");
+            return;
+        }
+        File indexFolder = new File(args[0]);
+        int numOfShards = Integer.parseInt(args[1]);
+
+        List<Path> shardPostFolders = new ArrayList<>();
+        for (int shardIndex = 0; shardIndex < numOfShards; shardIndex++) {
+            Path shardPostFolder = getShardFolder(indexFolder, shardIndex, numOfShards).toPath().resolve(POSTING_FOLDER_NAME);
+            if (!shardPostFolder.resolve(Indexer.DICTIONARY_FILE_NAME).toFile().exists()
+                    || !shardPostFolder.resolve(DocRegistry.DOCS_FILE_NAME).toFile().exists()) {
+                System.out.println("Shard " + shardIndex + " of " + numOfShards + " is not complete: " + shardPostFolder);
+                return;
+            }
+            shardPostFolders.add(shardPostFolder);
+        }
+
+        long startTime = System.nanoTime();
+        try {
+            merge(shardPostFolders, indexFolder.toPath().resolve(POSTING_FOLDER_NAME), indexFolder.toPath().resolve(TEMP_FOLDER_NAME));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        System.out.println("Merged " + numOfShards + " shards to a Dictionary of " + Indexer.getInstance().corpusSize()
+                + " terms and " + DocRegistry.getInstance().size() + " documents in " + (System.nanoTime() - startTime) / 1000000000 + " Seconds");
+    }
+
+    /**
+     * @return the folder shard shardIndex of numOfShards is indexed into
+     */
+    public static File getShardFolder(File indexFolder, int shardIndex, int numOfShards) {
+        return new File(indexFolder, "shard-" + shardIndex + "-of-" + numOfShards);
+    }
+
+    /**
+     * Merges the shards in the given order
+     * @param shardPostFolders - the posting files folders of the shards
+     * @param postFolder - the posting files folder of the merged index
+     * @param tempFolder - the folder for the temp runs of the merge
+     * @throws IOException
+     */
+    public static void merge(List<Path> shardPostFolders, Path postFolder, Path tempFolder) throws IOException {
+        Files.createDirectories(postFolder);
+        Files.createDirectories(tempFolder);
+        FileUtils.cleanDirectory(postFolder.toFile());
+        FileUtils.cleanDirectory(tempFolder.toFile());
+
+        Indexer indexer = Indexer.getInstance();
+        indexer.setPathToPostFiles(postFolder.toString());
+        indexer.setPathToTempFolder(tempFolder.toString());
+        DocRegistry registry = DocRegistry.getInstance();
+        registry.clear();
+
+        HashMap<String, PostingList> runTerms = new HashMap<>();
+        long runBytes = 0;
+        for (Path shardPostFolder :
+                shardPostFolders) {
+            int idOffset = registry.appendFromDisk(shardPostFolder);
+            System.out.println("Merging " + shardPostFolder + " with doc id offset " + idOffset);
+
+            // Every post file of the shard is read once, a list at a time in the order of the offsets
+            Map<String, TreeMap<Long, String>> termsOfPostFile = new TreeMap<>();
+            HashMap<String, String> shardDictionary = Indexer.readDictionaryFromDisk(shardPostFolder);
+            for (Map.Entry<String, String> termEntry :
+                    shardDictionary.entrySet()) {
+                int offsetDelimIndex = termEntry.getValue().lastIndexOf('#');
+                String postFile = termEntry.getValue().substring(0, offsetDelimIndex);
+                long offset = Long.parseLong(termEntry.getValue().substring(offsetDelimIndex + 1));
+                termsOfPostFile.computeIfAbsent(postFile, file -> new TreeMap<>()).put(offset, termEntry.getKey());
+            }
+
+            for (Map.Entry<String, TreeMap<Long, String>> postFileEntry :
+                    termsOfPostFile.entrySet()) {
+                try (DataInputStream postFileIn = new DataInputStream(new BufferedInputStream(
+                        new FileInputStream(postFileEntry.getKey())))) {
+                    long position = 0;
+                    for (Map.Entry<Long, String> offsetEntry :
+                            postFileEntry.getValue().entrySet()) {
+                        skipTo(postFileIn, position, offsetEntry.getKey());
+                        PostingList postFileList = PostingList.readFrom(postFileIn);
+                        position = offsetEntry.getKey() + postFileList.writtenSize();
+                        String term = offsetEntry.getValue();
+                        PostingList docList = postFileList.shiftDocIds(idOffset);
+                        PostingList runDocList = runTerms.get(term);
+                        if (runDocList == null) {
+                            runTerms.put(term, docList);
+                            runBytes += Indexer.estimateTermBytes(term, docList);
+                        }
+                        else {
+                            long sizeBeforeMerge = runDocList.memorySize();
+                            runDocList.addAll(docList);
+                            runBytes += runDocList.memorySize() - sizeBeforeMerge;
+                        }
+                        if (runBytes >= indexer.getMemoryBudget()) {
+                            writeRun(indexer, runTerms);
+                            runTerms = new HashMap<>();
+                            runBytes = 0;
+                        }
+                    }
+                }
+            }
+        }
+        if (!runTerms.isEmpty()) {
+            writeRun(indexer, runTerms);
+        }
+        indexer.createCorpusDictionary();
+    }
+
+    /**
+     * Skips a post file from the current position to the offset of the next list
+     */
+    private static void skipTo(DataInputStream postFileIn, long position, long offset) throws IOException {
+        long bytesToSkip = offset - position;
+        while (bytesToSkip > 0) {
+            int skipped = postFileIn.skipBytes((int) Math.min(bytesToSkip, Integer.MAX_VALUE));
+            if (skipped <= 0) {
+                throw new EOFException("No posting list at offset " + offset);
+            }
+            bytesToSkip -= skipped;
+        }
+    }
+
+    private static void writeRun(Indexer indexer, HashMap<String, PostingList> runTerms) {
+        indexer.hundredKtermsMap = runTerms;
+        indexer.writeHashMapToDisk();
+    }
+}
@@ -2,20 +2,18 @@ package Parser;
 
 import IR.Document;
 import IR.Term;
+import Indexer.DocRegistry;
 import Indexer.Indexer;
+import Indexer.PostingList;
 import Indexer.ReadWriteTempDic;
+import Tokenizer.TextScanner;
 import Tokenizer.Tokenizer;
 import org.apache.commons.lang3.math.NumberUtils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public abstract class AParser implements Runnable {
 
@@ -23,25 +21,35 @@ public abstract class AParser implements Runnable {
     protected final double MILLION = 1000000;
     protected final double THOUSAND = 1000;
     protected char[] punctuations = {',','.',';',':','?','(',')','"','{','}','-',']','[','!','\t','\n','|','*'};
-    private String tfDelim = "#";
     protected String parseName;
     protected String[] docText;
     protected Tokenizer toknizr = Tokenizer.getInstance();
-    protected static HashSet<String> stopWords;
-    protected static HashSet<String> stopMWords;
+    protected static final StopWordSet stopWords = StopWordSet.load(new File("./src/main/resources/stopWords.txt"));
+    protected static final StopWordSet stopMWords = StopWordSet.load(new File("./src/main/resources/moreStopWords.txt"));
 //    protected ConcurrentHashMap<String,String> termsInText;
-    protected HashMap<String,String> termsInText;
-    protected static ConcurrentLinkedQueue<Document> docQueueWaitingForParse;
-    protected static int numOfParsedDocInIterative;
+    protected HashMap<String,PostingList> termsInText;
+    protected HashMap<String,PostingList> stemmedTermsInText;
+    private static final int MAX_DOCS_IN_QUEUE = 2000;
+    private static final long MAX_BYTES_IN_QUEUE = 64L * 1024 * 1024;
+    private static final long DEQUEUE_TIMEOUT_MILLIS = 100;
+    protected static final DocQueue docQueueWaitingForParse = new DocQueue(MAX_DOCS_IN_QUEUE, MAX_BYTES_IN_QUEUE);
+    private static final ExactDuplicateFilter exactDuplicateFilter = new ExactDuplicateFilter();
+    private static volatile NearDuplicateFilter nearDuplicateFilter;
+    protected int numOfParsedDocInIterative;
     private Indexer myIndexer = Indexer.getInstance();
     private static final int numberOfDocsToPost = 100;
     protected volatile boolean stopThread = false;
+    protected volatile boolean stemming = false;
+    protected volatile boolean dualIndexing = false;
     protected ReadWriteTempDic myReadWriter = ReadWriteTempDic.getInstance();
-    private boolean doneReadingDocs;
-    public StringBuilder lastDocList;
-    private static ReadWriteLock docEnqDeqLocker = new ReentrantReadWriteLock();
-    protected static Semaphore termsInTextSemaphore = new Semaphore(1);
-    protected boolean isParsing = false;
+    private volatile boolean doneReadingDocs;
+    private final TermFrequencyCounter docTermCounts = new TermFrequencyCounter();
+    private final TermFrequencyCounter docStemCounts = new TermFrequencyCounter();
+    private final StemCache stemCache = StemCache.getInstance();
+    private final TermPool termPool = TermPool.getInstance();
+    private int countedDocId = -1;
+    private static volatile CountDownLatch releaseRequest;
+    private CountDownLatch handledReleaseRequest;
 
 //    public static ReadWriteLock termsInTextLock = new ReentrantReadWriteLock();
 
@@ -50,10 +58,7 @@ public abstract class AParser implements Runnable {
     {
 //        termsInText = new ConcurrentHashMap<>();
         termsInText = new HashMap<>();
-        docQueueWaitingForParse = new ConcurrentLinkedQueue<>();
-        numOfParsedDocInIterative = 0;
-        createStopWords();
-        createMStopWords();
+        stemmedTermsInText = new HashMap<>();
         doneReadingDocs = false;
         stopThread = false;
 
@@ -61,13 +66,37 @@ public abstract class AParser implements Runnable {
 
     }
 
+    /**
+     * Chooses whether the words are indexed by their stem, multi word names are indexed as they are
+     * @param stemming - true to stem the words of the Documents parsed from now on
+     */
+    public void setStemming(boolean stemming)
+    {
+        this.stemming = stemming;
+    }
+
+    public boolean isStemming()
+    {
+        return stemming;
+    }
+
+    /**
+     * Chooses whether the parser feeds both indices in the same pass,
+     * the terms go to {@link Indexer#getInstance()} as they are and to {@link Indexer#getStemmedInstance()} stemmed
+     * @param dualIndexing - true to build both indices, the stemming choice is then ignored
+     */
+    public void setDualIndexing(boolean dualIndexing)
+    {
+        this.dualIndexing = dualIndexing;
+    }
+
+    /**
+     * Stops the parser after the Document it parses, the parser thread hands its last terms to the Indexer itself
+     */
     public void stopThread()
     {
         doneReadingDocs = true;
-        while(isParsing);
-        releaseToIndexerFile();
         stopThread = true;
-
     }
 
 
@@ -77,48 +106,101 @@ public abstract class AParser implements Runnable {
      */
     public boolean isQEmpty()
     {
-        docEnqDeqLocker.readLock().lock();
-        boolean isItEmpty = docQueueWaitingForParse.isEmpty();
-        docEnqDeqLocker.readLock().unlock();
-        return isItEmpty;
+        return docQueueWaitingForParse.isEmpty();
     }
 
     /**
-     * Enqueue a new Document to the tail of the queue
+     * Enqueue a new Document to the tail of the queue shared by all the parsers,
+     * blocks while the queue is full.
+     * A Document whose text was already enqueued is skipped,
+     * so is a near duplicate of an enqueued Document if near duplicates are filtered.
      * @param d
-     * @return
+     * @return true if the Document was enqueued
      */
-    public boolean enqueueDoc(Document d)
+    public static boolean enqueueDoc(Document d)
     {
-        if(d != null && !docQueueWaitingForParse.contains(d))
+        if(d != null && !exactDuplicateFilter.isDuplicate(d))
         {
-            docEnqDeqLocker.writeLock().lock();
-            boolean inserted = docQueueWaitingForParse.add(d);
-            docEnqDeqLocker.writeLock().unlock();
-            return inserted;
+            NearDuplicateFilter nearDuplicates = nearDuplicateFilter;
+            if(nearDuplicates == null)
+            {
+                d.setDocId(DocRegistry.getInstance().register(d.getDocNo()));
+            }
+            else if(nearDuplicates.collapse(d))
+            {
+                return false;
+            }
+            try
+            {
+                docQueueWaitingForParse.put(d);
+                return true;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
         }
         return false;
     }
 
     /**
-     * Dequeue first Document in the queue
-     * @return
+     * Dequeue first Document in the queue, waits a short time for one if the queue is empty
+     * @return the Document or null if none arrived
      */
     protected Document dequeueDoc()
     {
-        docEnqDeqLocker.readLock().lock();
-        Document dqd = docQueueWaitingForParse.poll();
-        docEnqDeqLocker.readLock().unlock();
-        return dqd;
+        try
+        {
+            return docQueueWaitingForParse.poll(DEQUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * @return the filter of the Documents whose text was already enqueued
+     */
+    public static ExactDuplicateFilter getExactDuplicateFilter()
+    {
+        return exactDuplicateFilter;
     }
 
+    /**
+     * Sets the stage that collapses near duplicate Documents before they are parsed
+     * @param filter - the near duplicates filter or null to parse every Document that is not an exact duplicate
+     */
+    public static void setNearDuplicateFilter(NearDuplicateFilter filter)
+    {
+        nearDuplicateFilter = filter;
+    }
 
+    public static NearDuplicateFilter getNearDuplicateFilter()
+    {
+        return nearDuplicateFilter;
+    }
+
+    /**
+     * @return the queue of the Documents waiting for parse, shared by all the parsers
+     */
+    public static DocQueue getDocQueue()
+    {
+        return docQueueWaitingForParse;
+    }
+
+
+    /**
+     * Hands the terms of the last Documents to the Indexer once enough Documents were parsed,
+     * the terms map is owned by the parser thread so no lock is taken, the Indexer gets it through a lock free queue
+     */
     protected void releaseToIndexerFile()
     {
         if(numOfParsedDocInIterative >= numberOfDocsToPost || doneReadingDocs)
         {
 //            if(!myReadWriter.writeToDic(termsInText,getName()))
-            termsInTextSemaphore.acquireUninterruptibly();
+            flushDocTerms();
             //System.out.println("Parsed " + termsInText.size() + " terms");
 //            termsInTextLocker.writeLock().lock();
             if(!Indexer.getInstance().enqueue(termsInText))
@@ -126,13 +208,17 @@ public abstract class AParser implements Runnable {
                 System.out.println("Fuck it");
                 //TODO: maybe throw exception?
             }
+            if(dualIndexing && !stemmedTermsInText.isEmpty())
+            {
+                Indexer.getStemmedInstance().enqueue(stemmedTermsInText);
+                stemmedTermsInText = new HashMap<>();
+            }
 //            myIndexer.enqueue(termsInText);
 //            termsInText = null;
 //            termsInText = new ConcurrentHashMap<>();
             termsInText = new HashMap<>();
 //            termsInTextLocker.writeLock().unlock();
             numOfParsedDocInIterative = 0;
-            termsInTextSemaphore.release();
 
 //            termsInText.clear();
 
@@ -140,71 +226,46 @@ public abstract class AParser implements Runnable {
 
     }
 
-    private String getName() {
-        return parseName;
+    /**
+     * Asks every running parser to hand its parsed terms to the Indexer as soon as it has no Document to parse,
+     * used to reach a checkpoint where every enqueued Document is in the Indexer
+     * @param numOfParsers - the number of running parsers
+     * @return a latch that opens once all the parsers handed their terms
+     */
+    public static CountDownLatch requestRelease(int numOfParsers)
+    {
+        CountDownLatch request = new CountDownLatch(numOfParsers);
+        releaseRequest = request;
+        return request;
     }
 
     /**
-     * Creates a String that contains all the stopwords from the file <b>resources/stopWords.txt</b>
+     * Hands the parsed terms to the Indexer if a release was requested and this parser did not handle it yet,
+     * must be called only between Documents
      */
-    protected void createStopWords() {
-        if (stopWords == null) {
-            stopWords = new HashSet<>();
-            File stopWordsFile = new File("./src/main/resources/stopWords.txt");
-            if (!stopWordsFile.exists()) {
-                System.out.println(stopWordsFile.getAbsolutePath());
+    protected void releaseOnRequest()
+    {
+        CountDownLatch request = releaseRequest;
+        if(request != null && request != handledReleaseRequest)
+        {
+            handledReleaseRequest = request;
+            flushDocTerms();
+            if(!termsInText.isEmpty())
+            {
+                Indexer.getInstance().enqueue(termsInText);
+                termsInText = new HashMap<>();
             }
-
-            try {
-                BufferedReader stopWordsReader = new BufferedReader(new FileReader(stopWordsFile));
-
-                String word = stopWordsReader.readLine();
-                while (word != null) {
-                    stopWords.add(word.toLowerCase());
-                    stopWords.add(word);
-                    stopWords.add(word.toUpperCase());
-                    word = stopWordsReader.readLine();
-                }
-
-                stopWordsReader.close();
-//            this.stopWords = (List<String>) Fileo.readObject();
-
-//            Filer.close();
-
-            } catch (Exception e) {
-                e.printStackTrace();
+            if(!stemmedTermsInText.isEmpty())
+            {
+                Indexer.getStemmedInstance().enqueue(stemmedTermsInText);
+                stemmedTermsInText = new HashMap<>();
             }
+            request.countDown();
         }
     }
 
-    protected void createMStopWords() {
-        if (stopMWords == null) {
-            stopMWords = new HashSet<>();
-            File stopWordsFile = new File("./src/main/resources/moreStopWords.txt");
-            if (!stopWordsFile.exists()) {
-                System.out.println(stopWordsFile.getAbsolutePath());
-            }
-
-            try {
-                BufferedReader stopWordsReader = new BufferedReader(new FileReader(stopWordsFile));
-
-                String word = stopWordsReader.readLine();
-                while (word != null) {
-                    stopMWords.add(word.toLowerCase());
-                    stopMWords.add(word);
-                    stopMWords.add(word.toUpperCase());
-                    word = stopWordsReader.readLine();
-                }
-
-                stopWordsReader.close();
-//            this.stopWords = (List<String>) Fileo.readObject();
-
-//            Filer.close();
-
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
+    private String getName() {
+        return parseName;
     }
 
     public abstract void parse();
@@ -223,7 +284,7 @@ public abstract class AParser implements Runnable {
     {
         if (d != null)
         {
-           docText = d.getDocText().text().split(" ");
+           docText = d.getText().split(" ");
         }
         else
         {
@@ -232,16 +293,20 @@ public abstract class AParser implements Runnable {
     }
 
 
+    /**
+     * Strips the punctuation at the end of the word, the word is cut once
+     * @param word - a word of the text
+     * @return the word without punctuation at its end
+     */
     protected String chopDownLastCharPunc(String word) {
 
         if(word != null && word.length() >= 1)
         {
-//            word = word.toLowerCase();
-            while(isLastCharPunctuation(word))
+            int end = TextScanner.trimEndPunctuation(word, 0, word.length());
+            if(end < word.length())
             {
-                word = word.substring(0,word.length()-1);
+                word = word.substring(0, end);
             }
-
         }
         return word;
     }
@@ -293,13 +358,19 @@ public abstract class AParser implements Runnable {
     }
 
 
+    /**
+     * Strips the punctuation at the start of the word while at least 2 chars are left, the word is cut once
+     * @param word - a word of the text
+     * @return the word without punctuation at its start
+     */
     protected String chopDownFisrtChar(String word) {
-        char[] punctuations = {',','.',';',':','?','|','('};
 
         if(word != null && word.length() >= 2)
         {
-            while(isFirstCharPunctuation(word)){
-                word = word.substring(1);
+            int start = TextScanner.trimStartPunctuation(word, 0, word.length());
+            if(start > 0)
+            {
+                word = word.substring(start);
             }
         }
         return word;
@@ -378,69 +449,90 @@ public abstract class AParser implements Runnable {
         this.termsInText.clear();
     }
 
-    protected void parsedTermInsert(String term, String currentDocNo,String parserName) {
+    protected void parsedTermInsert(String term, int currentDocId,String parserName) {
         if(term.equalsIgnoreCase(""))
         {
             System.out.println("Term is Empty " + parserName);
         }
-        parsedTermInsert(term,currentDocNo);
+        parsedTermInsert(term,currentDocId);
 
     }
 
 
     /**
-     * Gets a parsed number and inserting it to the Dictionary
+     * Gets a parsed term and counts it for the Document, the counts of a Document are inserted to the Dictionary
+     * by {@link #flushDocTerms()} once the Document is parsed, or when a term of another Document is inserted
+     * the postings of the term are a {@link PostingList}
      * @param term
+     * @param currentDocId - the id the {@link DocRegistry} gave the Document
      */
-    protected void parsedTermInsert(String term, String currentDocNo) {
-//        termsInTextLocker.readLock().lock();
-//        termsInTextSemaphore.acquireUninterruptibly();
+    protected void parsedTermInsert(String term, int currentDocId) {
+        countFor(currentDocId);
+        docTermCounts.add(term);
+        if (dualIndexing) {
+            docStemCounts.add(term);
+        }
+    }
 
-        if (termsInText.containsKey(term)) {
+    /**
+     * Gets a parsed word made of letters only, the word is inserted by its stem if the parser stems,
+     * when both indices are built the word goes to the Dictionary and its stem to the stemmed Dictionary
+     * @param word - a word of letters only
+     * @param currentDocId - the id the {@link DocRegistry} gave the Document
+     */
+    protected void parsedWordInsert(String word, int currentDocId) {
+        countFor(currentDocId);
+        if (dualIndexing) {
+            docTermCounts.add(word);
+            docStemCounts.add(stemCache.stem(word));
+        }
+        else {
+            docTermCounts.add(stemming ? stemCache.stem(word) : word);
+        }
+    }
 
-//            int tf = Integer.parseInt(numbersInText.get(parsedNum).split(",")[1]);
+    private void countFor(int currentDocId) {
+        if (currentDocId != countedDocId) {
+            flushDocTerms();
+            countedDocId = currentDocId;
+        }
+    }
 
-             String docList = termsInText.get(term);
-            String[] docsSplitted =  docList.toString().split(";");
-            boolean docAlreadyParsed = false;
-            int oldtf = 0;
-            lastDocList = new StringBuilder("");
+    /**
+     * Inserts the counted terms of the current Document to the Dictionary, one posting (docId, tf) per term
+     */
+    protected void flushDocTerms() {
+        flushDocTerms(docTermCounts, termsInText);
+        flushDocTerms(docStemCounts, stemmedTermsInText);
+        countedDocId = -1;
+    }
 
-            for (String docParams:
-                 docsSplitted) {
-                String[] docAndtf = docParams.split(tfDelim);
-                oldtf = Integer.parseInt(docAndtf[1]);
-                if(docAndtf[0].equals(currentDocNo))
-                {
-                    oldtf += 1;
-                    docAlreadyParsed = true;
-                }
-                lastDocList.append(docAndtf[0] + tfDelim + oldtf + ";");
-            }
-            if(!docAlreadyParsed)
-            {
-                lastDocList.append(currentDocNo + tfDelim + "1;");
+    /**
+     * A term that enters the batch is resolved through the {@link TermPool}, so all the batches hold one instance of it
+     */
+    private void flushDocTerms(TermFrequencyCounter counts, HashMap<String,PostingList> terms) {
+        for (int i = 0; i < counts.size(); i++) {
+            String term = counts.termAt(i);
+            PostingList postings = terms.get(term);
+            if (postings == null) {
+                postings = new PostingList();
+                terms.put(termPool.intern(term), postings);
             }
-            lastDocList = new StringBuilder(lastDocList.substring(0,lastDocList.length()-1));
-
-            termsInText.replace(term,docList.toString(),lastDocList.toString());
-
-        } else {
-            termsInText.put(term, currentDocNo + tfDelim + "1");
+            postings.add(countedDocId, counts.countAt(i));
         }
-//        termsInTextLocker.readLock().unlock();
-//        termsInTextSemaphore.release();
+        counts.clear();
     }
 
     /**
      * @return the Dictionary of this parser
      */
-    public HashMap<String, String> getCopyOfTermInText() {
-        return new HashMap<String,String>(termsInText);
+    public HashMap<String, PostingList> getCopyOfTermInText() {
+        flushDocTerms();
+        return new HashMap<String,PostingList>(termsInText);
     }
 
     public int qSize()
     {
-        return this.docQueueWaitingForParse.size();
+        return docQueueWaitingForParse.getSize();
     }
 }
@@ -0,0 +1,238 @@
+package Parser;
+
+import IR.Document;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded blocking queue of documents waiting for parse.
+ * The queue is bounded both by the number of documents and by their estimated size in bytes,
+ * a producer that enqueues to a full queue is blocked until the parsers take documents out of it
+ * and a parser that dequeues from an empty queue is parked until a document arrives.
+ * A single document larger than the bytes bound is still accepted when the queue is empty.
+ */
+public class DocQueue implements DocQueueMXBean {
+
+    private ArrayDeque<QueuedDoc> docs;
+    private ReentrantLock lock;
+    private Condition notEmpty;
+    private Condition notFull;
+    private Condition empty;
+    private int maxDocs;
+    private long maxBytes;
+    private long bytesInQueue;
+    // written under the lock, volatile so the metrics can be read without it
+    private volatile int peakSize;
+    private volatile long peakBytesInQueue;
+    private volatile long totalEnqueued;
+    private volatile long totalDequeued;
+    private volatile long producerBlockedNanos;
+
+    public DocQueue(int maxDocs, long maxBytes) {
+        this.docs = new ArrayDeque<>();
+        this.lock = new ReentrantLock();
+        this.notEmpty = lock.newCondition();
+        this.notFull = lock.newCondition();
+        this.empty = lock.newCondition();
+        this.maxDocs = maxDocs;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Changes the bounds of the queue, documents already in the queue are kept
+     * @param maxDocs - max number of documents in the queue
+     * @param maxBytes - max estimated bytes of the documents in the queue
+     */
+    public void setCapacity(int maxDocs, long maxBytes) {
+        lock.lock();
+        try {
+            this.maxDocs = maxDocs;
+            this.maxBytes = maxBytes;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Enqueue a document to the tail of the queue, waits while the queue is full
+     * @param d - the document
+     * @throws InterruptedException
+     */
+    public void put(Document d) throws InterruptedException {
+        long docBytes = d.getSizeInBytes();
+        lock.lockInterruptibly();
+        try {
+            if (isFull(docBytes)) {
+                long startTime = System.nanoTime();
+                while (isFull(docBytes)) {
+                    notFull.await();
+                }
+                producerBlockedNanos += System.nanoTime() - startTime;
+            }
+            docs.addLast(new QueuedDoc(d, docBytes));
+            bytesInQueue += docBytes;
+            totalEnqueued++;
+            peakSize = Math.max(peakSize, docs.size());
+            peakBytesInQueue = Math.max(peakBytesInQueue, bytesInQueue);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dequeue the first document in the queue, waits up to timeout for a document to arrive
+     * @return the document or null if the timeout passed
+     * @throws InterruptedException
+     */
+    public Document poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (docs.isEmpty()) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            QueuedDoc queued = docs.pollFirst();
+            bytesInQueue -= queued.bytes;
+            totalDequeued++;
+            notFull.signal();
+            if (docs.isEmpty()) {
+                empty.signalAll();
+            }
+            return queued.doc;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the parsers took all the documents out of the queue
+     * @throws InterruptedException
+     */
+    public void awaitEmpty() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (!docs.isEmpty()) {
+                empty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return docs.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isFull(long docBytes) {
+        return docs.size() >= maxDocs || (!docs.isEmpty() && bytesInQueue + docBytes > maxBytes);
+    }
+
+    /**
+     * Registers the queue metrics in the platform MBean server
+     */
+    public void registerMBean() {
+        try {
+            ObjectName name = new ObjectName("RetrivalEngine:type=DocQueue");
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public int getSize() {
+        lock.lock();
+        try {
+            return docs.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long getBytesInQueue() {
+        lock.lock();
+        try {
+            return bytesInQueue;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPeakSize() {
+        return peakSize;
+    }
+
+    @Override
+    public long getPeakBytesInQueue() {
+        return peakBytesInQueue;
+    }
+
+    @Override
+    public int getMaxDocs() {
+        return maxDocs;
+    }
+
+    @Override
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public long getTotalEnqueued() {
+        return totalEnqueued;
+    }
+
+    @Override
+    public long getTotalDequeued() {
+        return totalDequeued;
+    }
+
+    @Override
+    public long getProducerBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(producerBlockedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return "DocQueue{" +
+                "size=" + getSize() +
+                ", peakSize=" + peakSize + "/" + maxDocs +
+                ", peakBytes=" + peakBytesInQueue + "/" + maxBytes +
+                ", enqueued=" + totalEnqueued +
+                ", dequeued=" + totalDequeued +
+                ", producerBlockedMillis=" + getProducerBlockedMillis() +
+                '}';
+    }
+
+    /**
+     * A document in the queue with the bytes it was counted for when it was enqueued
+     */
+    private static class QueuedDoc {
+        private Document doc;
+        private long bytes;
+
+        QueuedDoc(Document doc, long bytes) {
+            this.doc = doc;
+            this.bytes = bytes;
+        }
+    }
+}
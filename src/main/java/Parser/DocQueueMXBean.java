@@ -0,0 +1,26 @@
+package Parser;
+
+/**
+ * The metrics of the documents queue between the corpus reader and the parsers,
+ * exported through JMX under <i>RetrivalEngine:type=DocQueue</i>
+ */
+public interface DocQueueMXBean {
+
+    int getSize();
+
+    long getBytesInQueue();
+
+    int getPeakSize();
+
+    long getPeakBytesInQueue();
+
+    int getMaxDocs();
+
+    long getMaxBytes();
+
+    long getTotalEnqueued();
+
+    long getTotalDequeued();
+
+    long getProducerBlockedMillis();
+}
@@ -0,0 +1,97 @@
+package Parser;
+
+import IR.DocFingerprint;
+import IR.Document;
+import Indexer.IngestManifest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds documents whose text was already ingested, by the {@link DocFingerprint} of the text.
+ * The fingerprints of all the ingested documents are kept in a concurrent set so every check is O(1),
+ * documents without text are never duplicates.
+ * The fingerprints are saved on every checkpoint so a resumed indexing still skips the documents of the finished files.
+ */
+public class ExactDuplicateFilter implements IngestManifest.CheckpointState {
+
+    private final Set<DocFingerprint> ingestedFingerprints = ConcurrentHashMap.newKeySet();
+    private final AtomicLong numOfSkippedDuplicates = new AtomicLong(0);
+
+    /**
+     * Records the document and tells if a document with the same text was recorded before
+     * @param document - a document that is about to be ingested
+     * @return true if the document should be skipped
+     */
+    public boolean isDuplicate(Document document) {
+        if (document.isEmpty()) {
+            return false;
+        }
+        if (ingestedFingerprints.add(document.getFingerprint())) {
+            return false;
+        }
+        numOfSkippedDuplicates.incrementAndGet();
+        return true;
+    }
+
+    public long getNumOfSkippedDuplicates() {
+        return numOfSkippedDuplicates.get();
+    }
+
+    public int size() {
+        return ingestedFingerprints.size();
+    }
+
+    public void clear() {
+        ingestedFingerprints.clear();
+        numOfSkippedDuplicates.set(0);
+    }
+
+    @Override
+    public String getStateName() {
+        return "fingerprints";
+    }
+
+    @Override
+    public void writeState(Path stateFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile.toFile())))) {
+            for (DocFingerprint fingerprint :
+                    ingestedFingerprints) {
+                out.writeLong(fingerprint.getHigh());
+                out.writeLong(fingerprint.getLow());
+            }
+        }
+    }
+
+    @Override
+    public void readState(Path stateFile) throws IOException {
+        clear();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile.toFile())))) {
+            while (true) {
+                long high;
+                try {
+                    high = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                ingestedFingerprints.add(new DocFingerprint(high, in.readLong()));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ExactDuplicateFilter{fingerprints=" + ingestedFingerprints.size() +
+                ", skippedDuplicates=" + numOfSkippedDuplicates.get() + "}";
+    }
+}
@@ -1,26 +1,26 @@
 package Parser;
 
 import IR.Document;
+import Indexer.DocRegistry;
+import Tokenizer.TextScanner;
 import org.apache.commons.lang3.math.NumberUtils;
 
-import java.text.DecimalFormat;
 import java.time.Month;
-import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class MainParse extends AParser {
-    private String[] splitedText;
+    private TextScanner scanner = new TextScanner();
     private Document d;
     private AtomicInteger i = new AtomicInteger(0);
     ;
     private String pattern = "(([0-9]+\\-[0-9]+)|([a-zA-Z]+-[a-zA-Z]+-[a-zA-Z]+)|([a-zA-Z]+-[a-zA-Z]+)|[0-9]+\\-[a-zA-Z]+)";
     private Pattern pRange = Pattern.compile(pattern);
     private Matcher matcherRange;
-    private static Semaphore docDequeuerLock;
     private Document currentDoc = null;
-    private DecimalFormat format3Decimals;
+    private final NumberNormalizer numberNormalizer = new NumberNormalizer();
+    private final ParseRuleRegistry rules = new ParseRuleRegistry();
     private final String dollars = "Dollars";
     private final String us = "U.S.";
 
@@ -28,9 +28,39 @@ public class MainParse extends AParser {
     public MainParse() {
         super();
         this.parseName = "Main Parser";
-        docDequeuerLock = new Semaphore(1);
-        format3Decimals = new DecimalFormat("#.###");
 //        i = new AtomicInteger(0);
+        registerRules();
+    }
+
+    /**
+     * The rules of every token class, in the order they are tried
+     */
+    private void registerRules() {
+        rules.register(TokenClass.NUMBER, "Prices", (word, index) -> parsePrices(word));
+        rules.register(TokenClass.NUMBER, "Numbers", (word, index) -> parseNumbers(word));
+
+        rules.register(TokenClass.DIGIT, "Percentage", (word, index) -> parsePercentage(word));
+        rules.register(TokenClass.DIGIT, "Fractions", (word, index) -> {
+            if (!isFraction(word)) {
+                return false;
+            }
+            parseNumbers(word);
+            return true;
+        });
+        rules.register(TokenClass.DIGIT, "NumberRanges", (word, index) -> parseNumberRanges(word));
+
+        rules.register(TokenClass.UPPER, "Dates", (word, index) -> parseDates(word));
+        rules.register(TokenClass.UPPER, "Percentage", (word, index) -> parsePercentage(word));
+        rules.register(TokenClass.UPPER, "Names", (word, index) -> parseNames(scanner.halfCleanToken(index)));
+
+        rules.register(TokenClass.DOLLAR, "NameRanges", (word, index) -> parseNameRanges(word));
+        rules.register(TokenClass.DOLLAR, "Prices", (word, index) -> parsePrices(word));
+
+        rules.register(TokenClass.OTHER, "NameRanges", (word, index) -> parseNameRanges(word));
+
+        rules.register(TokenClass.LOWER, "Dates", (word, index) -> parseDates(word));
+        rules.register(TokenClass.LOWER, "Percentage", (word, index) -> parsePercentage(word));
+        rules.register(TokenClass.LOWER, "Words", (word, index) -> parseWords(word));
     }
 
     @Override
@@ -39,6 +69,7 @@ public class MainParse extends AParser {
         while (!stopThread) {
             parse();
         }
+        releaseToIndexerFile();
         System.out.println("Main Parser has stopped");
 
     }
@@ -49,100 +80,38 @@ public class MainParse extends AParser {
 //                currentDoc = dequeueDoc();
 //            }
 //        System.out.println("There are " + docQueueWaitingForParse.size() + " left in the queue");
-        docDequeuerLock.acquireUninterruptibly();
         currentDoc = dequeueDoc();
         if (currentDoc == null) {
-            docDequeuerLock.release();
+            releaseOnRequest();
             return;
         }
-        docDequeuerLock.release();
         i.set(0);
         parse(currentDoc);
+        DocRegistry.getInstance().setDocLength(currentDoc.getDocId(), scanner.size());
+        currentDoc.releaseText();
+        docText = null;
         numOfParsedDocInIterative++;
         releaseToIndexerFile();
     }
 
     public void parse(Document document) {
-        termsInTextSemaphore.acquireUninterruptibly();
         d = document;
-        isParsing = true;
 //        i.set(0);
 //        currentDoc = d;
 
         //System.out.println("There are " + docQueueWaitingForParse.size() + " left in the queue");
-        splitedText = document.getTextArray();
-
-        for (int index = 0; index < splitedText.length; index = i.incrementAndGet()) {
+        scanner.scan(document.getText());
 
-            String cleanWord = chopDownLastCharPunc(splitedText[index]);
-            cleanWord = chopDownFisrtChar(cleanWord);
-            String halfCleanWord = chopDownFisrtChar(splitedText[i.get()]);
+        for (int index = 0; index < scanner.size(); index = i.incrementAndGet()) {
 
             //Check if the word is empty word
-            if(!cleanWord.isEmpty()){
+            if(scanner.cleanLength(index) > 0){
+                String cleanWord = scanner.cleanToken(index);
 
-                //Check if the first char is number
-                if(Character.isDigit(cleanWord.charAt(0))){
-
-                    //Check if the all word is a number
-                    if(NumberUtils.isNumber(cleanWord)){
-                        if(parsePrices(cleanWord)){
-
-                        }
-                        else if(parseNumbers(cleanWord)){
-
-                        }
-                    }
-                    //If the the word is not a all number
-                    else{
-                        if(parsePercentage(cleanWord)){
-
-                        }
-                        //Check fractions
-                        else if(isFraction(cleanWord)){
-                            parseNumbers(cleanWord);
-                        }
-                        else{
-                            parseNumberRanges(cleanWord);
-                        }
-                    }
-                }
-                //The first letter is a character and upper case
-                else if(Character.isUpperCase(cleanWord.charAt(0))){
-                    if(parseDates(cleanWord)){
-
-                    }
-                    else if(parsePercentage(cleanWord)){
-
-                    }
-                    else{
-                        parseNames(halfCleanWord);
-                    }
-                }
-                else if(!checkAlphaBet(cleanWord)){
-                    if(parseNameRanges(cleanWord)){
-
-                    }
-                    //Check if the char is $
-                    else if(cleanWord.charAt(0) == '$'){
-                        parsePrices(cleanWord);
-                    }
-                }
-                else{
-                    if(parseDates(cleanWord)){
-
-                    }
-                    else if(parsePercentage(cleanWord)){
-
-                    }
-                    else {
-                        parseWords(cleanWord);
-                    }
-                }
+                rules.parse(TokenClass.of(cleanWord), cleanWord, index);
             }
         }
-        termsInTextSemaphore.release();
-        isParsing = false;
+        flushDocTerms();
     }
 
 
@@ -165,12 +134,12 @@ public class MainParse extends AParser {
                 String month;
                 String year;
                 int wordIndex = i.get();
-                if (wordIndex > 0 && wordIndex < splitedText.length - 1) {
-                    year = chopDownLastCharPunc(splitedText[wordIndex + 1]);
-                    if (NumberUtils.isDigits(splitedText[wordIndex - 1])) {
+                if (wordIndex > 0 && wordIndex < scanner.size() - 1) {
+                    year = chopDownLastCharPunc(scanner.token(wordIndex + 1));
+                    if (NumberUtils.isDigits(scanner.token(wordIndex - 1))) {
                         month = String.format("%02d", getMonthNumber(word));
-                        day = String.format("%02d", Integer.parseInt(splitedText[wordIndex - 1]));
-                        parsedTermInsert(day + "-" + month, d.getDocNo(),"Dates");
+                        day = String.format("%02d", Integer.parseInt(scanner.token(wordIndex - 1)));
+                        parsedTermInsert(day + "-" + month, d.getDocId(),"Dates");
                         //System.out.println(day + "-" + month);
                         isParsed = true;
 
@@ -180,11 +149,11 @@ public class MainParse extends AParser {
                         //If the year is a day in the month
                         if (Integer.parseInt(year) <= 31) {
                             year = String.format("%02d", Integer.parseInt(year));
-                            parsedTermInsert(month + "-" + year, d.getDocNo(),"Dates");
+                            parsedTermInsert(month + "-" + year, d.getDocId(),"Dates");
                             //System.out.println(month+"-"+year);
                             //newTerm = new Term(month +"-"+year);
                         } else {
-                            parsedTermInsert(month + "-" + year, d.getDocNo(),"Dates");
+                            parsedTermInsert(month + "-" + year, d.getDocId(),"Dates");
                             //System.out.println(month+"-"+year);
                             //newTerm = new Term(year +"-"+month);
                         }
@@ -302,18 +271,18 @@ public class MainParse extends AParser {
                 //word = chopDownFisrtChar(word);
                 if ((word.substring(0, word.length() - 1)).matches("^\\d+(\\.\\d+)?")) {
                     //double num = Double.parseDouble(word.substring(0, word.length() - 1));
-                    parsedTermInsert(word, d.getDocNo(),"Precentage");
+                    parsedTermInsert(word, d.getDocId(),"Precentage");
                     isParsed = true;
                     //Term newTerm = new Term(word);
                     //System.out.println(word);
                 } else if (isFraction(word.substring(0, word.length() - 1))) {
                     int wordIndex = i.get();
-                    if (wordIndex > 2 && splitedText[wordIndex - 1].matches("^\\d+(\\.\\d+)?")) {
-                        parsedTermInsert(splitedText[wordIndex - 1] + " " + word, d.getDocNo(),"Precentage");
+                    if (wordIndex > 2 && scanner.token(wordIndex - 1).matches("^\\d+(\\.\\d+)?")) {
+                        parsedTermInsert(scanner.token(wordIndex - 1) + " " + word, d.getDocId(),"Precentage");
                         //Term newTerm = new Term(wordsInDoc[i - 1] + " " + word);
-                        //System.out.println(splitedText[i - 1] + " " + word);
+                        //System.out.println(scanner.token(i - 1) + " " + word);
                     } else {
-                        parsedTermInsert(word, d.getDocNo(),"Precentage");
+                        parsedTermInsert(word, d.getDocId(),"Precentage");
                         //Term newTerm = new Term(word);
                         //System.out.println(word);
                     }
@@ -322,23 +291,23 @@ public class MainParse extends AParser {
             } else if (word.equalsIgnoreCase("percentage") || word.equalsIgnoreCase("percent") ||
                     word.equalsIgnoreCase("percentages") || word.equalsIgnoreCase("percents")) {
                 int wordIndex = i.get();
-                if (wordIndex > 0 && wordIndex < splitedText.length) {
-                    String lastWord = chopDownLastCharPunc(splitedText[wordIndex - 1]);
-                    lastWord = chopDownFisrtChar(splitedText[wordIndex - 1]);
+                if (wordIndex > 0 && wordIndex < scanner.size()) {
+                    String lastWord = chopDownLastCharPunc(scanner.token(wordIndex - 1));
+                    lastWord = chopDownFisrtChar(scanner.token(wordIndex - 1));
 
                     if (NumberUtils.isNumber(lastWord)) {
-                        parsedTermInsert(lastWord + "%", d.getDocNo(),"Precentage");
+                        parsedTermInsert(lastWord + "%", d.getDocId(),"Precentage");
                         //Term newTerm = new Term(lastWord + "%");
                         //System.out.println(lastWord + "%");
                         isParsed = true;
 
                     } else if (isFraction(lastWord)) {
-                        if (wordIndex > 2 && NumberUtils.isDigits(splitedText[wordIndex - 2])) {
-                            parsedTermInsert(splitedText[wordIndex - 2] + " " + word, d.getDocNo(),"Precentage");
+                        if (wordIndex > 2 && NumberUtils.isDigits(scanner.token(wordIndex - 2))) {
+                            parsedTermInsert(scanner.token(wordIndex - 2) + " " + word, d.getDocId(),"Precentage");
                             //Term newTerm = new Term(wordsInDoc[i - 2] + " " + word);
                             //System.out.println(newTerm.getWordValue());
                         } else {
-                            parsedTermInsert(word, d.getDocNo(),"Precentage");
+                            parsedTermInsert(word, d.getDocId(),"Precentage");
                             //System.out.println(newTerm.getWordValue());
                         }
                         isParsed = true;
@@ -369,13 +338,13 @@ public class MainParse extends AParser {
         if (word.equals("between")) {
 
             int wordIndex = i.get();
-            if (wordIndex < splitedText.length - 4) {
-                splitedText[wordIndex + 3] = chopDownLastCharPunc(splitedText[wordIndex + 3]);
-                if (splitedText[wordIndex + 2].equals("and") && NumberUtils.isNumber(splitedText[wordIndex + 1]) && NumberUtils.isNumber(splitedText[wordIndex + 3])) {
-                    parsedTermInsert(splitedText[wordIndex + 1], d.getDocNo(),"NameRanges");
-                    parsedTermInsert(splitedText[wordIndex + 3], d.getDocNo(),"NameRanges");
-                    parsedTermInsert("between" + splitedText[wordIndex + 1] + "and" + splitedText[wordIndex + 3], d.getDocNo(),"NameRanges");
-                    //System.out.println("between " + splitedText[i + 1] + " and " + splitedText[i + 3]);
+            if (wordIndex < scanner.size() - 4) {
+                scanner.setToken(wordIndex + 3, chopDownLastCharPunc(scanner.token(wordIndex + 3)));
+                if (scanner.token(wordIndex + 2).equals("and") && NumberUtils.isNumber(scanner.token(wordIndex + 1)) && NumberUtils.isNumber(scanner.token(wordIndex + 3))) {
+                    parsedTermInsert(scanner.token(wordIndex + 1), d.getDocId(),"NameRanges");
+                    parsedTermInsert(scanner.token(wordIndex + 3), d.getDocId(),"NameRanges");
+                    parsedTermInsert("between" + scanner.token(wordIndex + 1) + "and" + scanner.token(wordIndex + 3), d.getDocId(),"NameRanges");
+                    //System.out.println("between " + scanner.token(i + 1) + " and " + scanner.token(i + 3));
                     isParsed = true;
                     i.addAndGet(3);
                 }
@@ -391,14 +360,14 @@ public class MainParse extends AParser {
                 values = word.split("-");
                 if (values.length > 1) {
                     if (NumberUtils.isNumber(values[0]) && NumberUtils.isNumber(values[1])) {
-                        parsedTermInsert(values[0], d.getDocNo(),"NameRanges");
-                        parsedTermInsert(values[1], d.getDocNo(),"NameRanges");
+                        parsedTermInsert(values[0], d.getDocId(),"NameRanges");
+                        parsedTermInsert(values[1], d.getDocId(),"NameRanges");
 
                     }
 
                     //System.out.println(word);
                     isParsed = true;
-                    parsedTermInsert(word, d.getDocNo(),"NameRanges");
+                    parsedTermInsert(word, d.getDocId(),"NameRanges");
                 }
             }
         }
@@ -424,8 +393,8 @@ public class MainParse extends AParser {
             values = word.split("-");
             if (values.length > 1) {
                 if (NumberUtils.isNumber(values[0]) && NumberUtils.isNumber(values[1])) {
-                    parsedTermInsert(values[0], d.getDocNo(),"NumberRanges");
-                    parsedTermInsert(values[1], d.getDocNo(),"NumberRanges");
+                    parsedTermInsert(values[0], d.getDocId(),"NumberRanges");
+                    parsedTermInsert(values[1], d.getDocId(),"NumberRanges");
                 }
                 //System.out.println(word);
                 isParsed = true;
@@ -448,21 +417,21 @@ public class MainParse extends AParser {
         word = chopDownFisrtChar(word);
 
         boolean isParsed = false;
-        if (stopWords.contains(word.toLowerCase())) {
+        if (stopWords.containsIgnoreCase(word)) {
             return isParsed;
         }
         int wordIndex = i.get();
         if (Character.isDigit(word.charAt(0)))
         {/**searchong for word starting with number**/
-            if (wordIndex < splitedText.length - 1 && nextWordIsQuntifier(splitedText[wordIndex + 1]))
+            if (wordIndex < scanner.size() - 1 && nextWordIsQuntifier(scanner.token(wordIndex + 1)))
             {/**searching for number and quantifier num1 (Thousand|Million|Billion) **/
-                String theWordParsed = quantifiedWordForDic(word, splitedText[wordIndex + 1]);
+                String theWordParsed = quantifiedWordForDic(word, scanner.token(wordIndex + 1));
                 if (theWordParsed == null) {
                     //FUCK
 
                 } else {
 
-                    parsedTermInsert(theWordParsed, currentDoc.getDocNo(),"Number");
+                    parsedTermInsert(theWordParsed, d.getDocId(),"Number");
                     i.getAndIncrement();
                     isParsed = true;
                 }
@@ -472,20 +441,20 @@ public class MainParse extends AParser {
 //                /**searches for num1-num2**/
 //                if (word.matches("^\\d+(\\.\\d+)?-\\d+(\\.\\d+)?$")) {
 //                    String[] splitHifWord = word.split("-");
-//                    parsedTermInsert(splitHifWord[0], currentDoc.getDocNo());
-//                    parsedTermInsert(splitHifWord[1], currentDoc.getDocNo());
+//                    parsedTermInsert(splitHifWord[0], currentDoc.getDocId());
+//                    parsedTermInsert(splitHifWord[1], currentDoc.getDocId());
 //
 //                    isParsed = true;
 //                }
             /**searches for fraction num1/num2**/
             else if (isFraction(word)) {
-                parsedTermInsert(word, currentDoc.getDocNo(),"Number");
+                parsedTermInsert(word, d.getDocId(),"Number");
                 isParsed = true;
             }
             else {
                 /**parsing number**/
                 if(allCharsAreDigits(word)) {
-                    parsedTermInsert(quantifiedWordForDic(word), currentDoc.getDocNo(), "Number");
+                    parsedTermInsert(quantifiedWordForDic(word), d.getDocId(), "Number");
                     isParsed = true;
                 }
             }
@@ -530,25 +499,25 @@ public class MainParse extends AParser {
         if(importantNumber < THOUSAND)
         {
             importantNumber = importantNumber;
-            result = format3Decimals.format(importantNumber);
+            result = numberNormalizer.format(importantNumber);
         }
         else if(importantNumber < MILLION)
         {
             importantNumber = importantNumber/THOUSAND;
 
-            result = format3Decimals.format(importantNumber);
+            result = numberNormalizer.format(importantNumber);
             result += "K";
         }
         else if(importantNumber < BILLION)
         {
             importantNumber = importantNumber/MILLION;
-            result = format3Decimals.format(importantNumber);
+            result = numberNormalizer.format(importantNumber);
             result += "M";
         }
         else
         {
             importantNumber = importantNumber/BILLION;
-            result = format3Decimals.format(importantNumber);
+            result = numberNormalizer.format(importantNumber);
             result += "B";
         }
 
@@ -577,7 +546,7 @@ public class MainParse extends AParser {
         {
             return null;
         }
-        String result = importantNumber+"";
+        String result = numberNormalizer.toString(importantNumber);
         if(quntifier.equalsIgnoreCase("thousand"))
         {
             //Thousand
@@ -600,16 +569,7 @@ public class MainParse extends AParser {
     }
 
     private double getNumberFromString(String number) throws NumberFormatException {
-        number = chopDownLastCharPunc(number);
-        double numberInString = 0.0;
-//        if(number.matches("^(\\d+|\\d{1,3}(,\\d{3})*)(\\.\\d+)?$"))
-        if(NumberUtils.isNumber(number.replaceAll(",","")))
-        {
-            numberInString = Double.parseDouble(number.replaceAll(",",""));
-//                    System.out.println(word);
-        }
-
-        return numberInString;
+        return numberNormalizer.parse(chopDownLastCharPunc(number));
     }
 
     //    /**
@@ -629,26 +589,22 @@ public class MainParse extends AParser {
     public boolean parsePrices(String word) {
 
 //        this.splitDocText(d);
-        currentDoc = d;
-        docText = d.getTextArray();
-
         int countNumberMatch = 0, allNumbers = 0;
         int wordIndex = i.get();
-        String wordInText = docText[wordIndex];
+        // the clean token of the scanner is the raw token after chopDownLastCharPunc and chopDownFisrtChar
+        String wordInText = scanner.cleanToken(wordIndex);
         boolean isParsed = false;
-        wordInText = chopDownLastCharPunc(wordInText);
-        wordInText = chopDownFisrtChar(wordInText);
-        if (stopWords.contains(wordInText.toLowerCase())) {
+        if (stopWords.containsIgnoreCase(wordInText)) {
             return false;
         }
 //        if (wordInText.matches("(^\\d.*)"))
         if (NumberUtils.isNumber(word.charAt(0)+""))
         {//Current word is a number
-            if(wordIndex < docText.length-4)
+            if(wordIndex < scanner.size()-4)
             {//Check next word for quntifier
-                String isQuantifier = docText[wordIndex+1];
-                String scndWord = docText[wordIndex+2];
-                String thrdWord = docText[wordIndex+3];
+                String isQuantifier = scanner.originalToken(wordIndex+1);
+                String scndWord = scanner.originalToken(wordIndex+2);
+                String thrdWord = scanner.originalToken(wordIndex+3);
                 String termToInsert = "";
                 if(scndWord.equalsIgnoreCase(us.toLowerCase()))
                 {/**Price Quntifier U.S. Dollars**/
@@ -668,7 +624,7 @@ public class MainParse extends AParser {
                     termToInsert = quantifiedWordForPrices(wordInText,isQuantifier);
                     /**Price Quantifier Dollars**/
                     termToInsert += " " + dollars;
-                    parsedTermInsert(termToInsert, currentDoc.getDocNo(),"Prices");
+                    parsedTermInsert(termToInsert, d.getDocId(),"Prices");
                     isParsed = true;
                     i.set(wordIndex+2);
                 }
@@ -677,7 +633,7 @@ public class MainParse extends AParser {
                     /**Price Fraction Dollars**/
                     termToInsert = quantifiedWordForPrices(wordInText);
                     termToInsert = " " + isQuantifier + " " + dollars;
-                    parsedTermInsert(termToInsert, currentDoc.getDocNo(),"Prices");
+                    parsedTermInsert(termToInsert, d.getDocId(),"Prices");
                     isParsed = true;
                     i.set(wordIndex+2);
                 }
@@ -686,7 +642,7 @@ public class MainParse extends AParser {
                     /**Price Dollars**/
                     termToInsert = quantifiedWordForPrices(wordInText);
                     termToInsert = " " + dollars;
-                    parsedTermInsert(termToInsert, currentDoc.getDocNo(),"Prices");
+                    parsedTermInsert(termToInsert, d.getDocId(),"Prices");
                     isParsed = true;
                     i.set(wordIndex+1);
                 }
@@ -694,20 +650,20 @@ public class MainParse extends AParser {
         }
         else if(word.length()>1 && word.charAt(0) == '$' && NumberUtils.isNumber(word.charAt(1)+""))
         {//$price | regex: \$\d.*
-            if(wordIndex < docText.length-1)
+            if(wordIndex < scanner.size()-1)
             {
-                String quant = docText[wordIndex+1];
+                String quant = scanner.originalToken(wordIndex+1);
                 if(nextWordIsQuntifier(quant))
                 {/**$Price Quantifier**/
                     String termToInsert = quantifiedWordForPrices(wordInText.substring(1),quant);
-                    parsedTermInsert("$"+ termToInsert,currentDoc.getDocNo(),"Prices");
+                    parsedTermInsert("$"+ termToInsert,d.getDocId(),"Prices");
                     isParsed = true;
                     i.set(wordIndex+1);
                 }
                 else
                 {/**$Price**/
                     String termToInsert = quantifiedWordForPrices(wordInText.substring(1));
-                    parsedTermInsert("$"+termToInsert,currentDoc.getDocNo(),"Prices");
+                    parsedTermInsert("$"+termToInsert,d.getDocId(),"Prices");
                     isParsed = true;
                     i.set(wordIndex+1);
                 }
@@ -759,7 +715,7 @@ public class MainParse extends AParser {
         {
             return result;
         }
-        result = format3Decimals.format(importantNumber);
+        result = numberNormalizer.format(importantNumber);
         if(importantNumber >= MILLION)
         {
             importantNumber = importantNumber/MILLION;
@@ -819,7 +775,7 @@ public class MainParse extends AParser {
                 //String[] sentenceLengh = sentence.toString().split(" ");
                 if(numOfWords > 1 && numOfWords < 5){
                     //System.out.println(wordB);
-                    parsedTermInsert(sentence.substring(0, sentence.length() - 1), d.getDocNo());
+                    parsedTermInsert(sentence.substring(0, sentence.length() - 1), d.getDocId());
                     isParse = true;
                 }
                 numOfWords=0;
@@ -828,10 +784,10 @@ public class MainParse extends AParser {
             } else {
                 numOfWords++;
                 sentence.append(wordB).append(" ");
-                parsedTermInsert(wordB.toString(), d.getDocNo());
+                insertWord(wordB.toString());
             }
-            if(i.get() < splitedText.length-1){
-                wordB = new StringBuilder(splitedText[i.addAndGet(1)]);
+            if(i.get() < scanner.size()-1){
+                wordB = new StringBuilder(scanner.token(i.addAndGet(1)));
             }
             else{
                 break;
@@ -841,7 +797,7 @@ public class MainParse extends AParser {
             //String[] sentenceLengh = sentence.toString().split(" ");
 
             //System.out.println(sentence);
-            parsedTermInsert(sentence.substring(0, sentence.length() - 1), d.getDocNo());
+            parsedTermInsert(sentence.substring(0, sentence.length() - 1), d.getDocId());
             numOfWords=0;
             sentence.setLength(0);
             isParse = true;
@@ -861,19 +817,31 @@ public class MainParse extends AParser {
         //System.out.println(word);
         StringBuilder wordB = new StringBuilder(word);
 
-        if (wordB.length() < 3 || stopMWords.contains(wordB.toString().toLowerCase()) || wordB.toString().equals("") ) {
+        if (wordB.length() < 3 || stopMWords.containsIgnoreCase(wordB) || wordB.toString().equals("") ) {
             return isParsed;
         }
         //else if (wordB.toString().chars().allMatch(Character::isLetter)){
         else {
             //System.out.println(word);
-            parsedTermInsert(word,d.getDocNo());
+            insertWord(word);
             isParsed = true;
         }
 
         return isParsed;
     }
 
+    /**
+     * Inserts a word that may be stemmed, only words made of letters are stemmed
+     */
+    private void insertWord(String word) {
+        if (checkAlphaBet(word)) {
+            parsedWordInsert(word, d.getDocId());
+        }
+        else {
+            parsedTermInsert(word, d.getDocId());
+        }
+    }
+
     public static boolean checkAlphaBet(String name) {
         char[] chars = name.toCharArray();
         for(char c : chars){
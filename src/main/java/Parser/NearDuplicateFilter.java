@@ -0,0 +1,300 @@
+package Parser;
+
+import IR.Document;
+import Indexer.DocRegistry;
+import Indexer.IngestManifest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds documents that are near duplicates of an indexed document, such as rewrites of the same wire story.
+ * Every document gets a MinHash signature of its word shingles, the signatures are split to bands
+ * and a document is compared only with the indexed documents that share a band with it (LSH).
+ * A document whose estimated shingle similarity to an indexed document reaches the threshold is not indexed,
+ * it is collapsed into that document in the {@link DocRegistry} so its DocNumber can still be retrieved.
+ * The signatures of the indexed documents stay in memory, 4 * NUM_OF_HASHES bytes each.
+ */
+public class NearDuplicateFilter implements IngestManifest.CheckpointState {
+
+    private static final int SHINGLE_SIZE = 4;
+    private static final int NUM_OF_BANDS = 8;
+    private static final int ROWS_IN_BAND = 4;
+    private static final int NUM_OF_HASHES = NUM_OF_BANDS * ROWS_IN_BAND;
+    private static final long[] HASH_MULTIPLIERS = new long[NUM_OF_HASHES];
+    private static final long[] HASH_ADDERS = new long[NUM_OF_HASHES];
+
+    static {
+        long seed = 0x2545F4914F6CDD1DL;
+        for (int i = 0; i < NUM_OF_HASHES; i++) {
+            seed = mix(seed + 0x9e3779b97f4a7c15L);
+            HASH_MULTIPLIERS[i] = seed | 1;
+            seed = mix(seed + 0x9e3779b97f4a7c15L);
+            HASH_ADDERS[i] = seed;
+        }
+    }
+
+    private final double threshold;
+    private final List<Map<Long, List<Integer>>> bandTables;
+    private final Map<Integer, int[]> signatures;
+    private long numOfCheckedDocs;
+    private long numOfCollapsedDocs;
+    private long numOfCheckedTokens;
+    private long numOfCollapsedTokens;
+
+    /**
+     * @param threshold - the estimated shingle similarity from which a document is a near duplicate, between 0 and 1
+     */
+    public NearDuplicateFilter(double threshold) {
+        this.threshold = threshold;
+        this.bandTables = new ArrayList<>();
+        for (int band = 0; band < NUM_OF_BANDS; band++) {
+            bandTables.add(new HashMap<>());
+        }
+        this.signatures = new HashMap<>();
+    }
+
+    /**
+     * Collapses the document if it is a near duplicate of an indexed document,
+     * otherwise gives it its doc id and keeps its signature for the next documents
+     * @param document - a document that is about to be enqueued
+     * @return true if the document was collapsed and should not be indexed
+     */
+    public boolean collapse(Document document) {
+        long[] tokenHashes = tokenHashes(document.getText());
+        int[] signature = tokenHashes.length == 0 ? null : signature(tokenHashes);
+        DocRegistry registry = DocRegistry.getInstance();
+        synchronized (this) {
+            numOfCheckedDocs++;
+            numOfCheckedTokens += tokenHashes.length;
+            if (signature == null) {
+                document.setDocId(registry.register(document.getDocNo()));
+                return false;
+            }
+            int indexedDocId = findNearDuplicate(signature);
+            if (indexedDocId >= 0) {
+                registry.registerCollapsed(document.getDocNo(), indexedDocId);
+                numOfCollapsedDocs++;
+                numOfCollapsedTokens += tokenHashes.length;
+                return true;
+            }
+            document.setDocId(registry.register(document.getDocNo()));
+            addSignature(document.getDocId(), signature);
+            return false;
+        }
+    }
+
+    /**
+     * @return the id of an indexed document similar enough to the signature or -1 if there is none
+     */
+    private int findNearDuplicate(int[] signature) {
+        for (int band = 0; band < NUM_OF_BANDS; band++) {
+            List<Integer> candidates = bandTables.get(band).get(bandKey(signature, band));
+            if (candidates == null) {
+                continue;
+            }
+            for (int candidate :
+                    candidates) {
+                if (similarity(signature, signatures.get(candidate)) >= threshold) {
+                    return candidate;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void addSignature(int docId, int[] signature) {
+        signatures.put(docId, signature);
+        for (int band = 0; band < NUM_OF_BANDS; band++) {
+            bandTables.get(band).computeIfAbsent(bandKey(signature, band), key -> new ArrayList<>(1)).add(docId);
+        }
+    }
+
+    /**
+     * @return the fraction of equal hashes, an estimation of the Jaccard similarity of the shingle sets
+     */
+    private static double similarity(int[] signature, int[] otherSignature) {
+        int equalHashes = 0;
+        for (int i = 0; i < NUM_OF_HASHES; i++) {
+            if (signature[i] == otherSignature[i]) {
+                equalHashes++;
+            }
+        }
+        return (double) equalHashes / NUM_OF_HASHES;
+    }
+
+    private static long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS_IN_BAND; row < (band + 1) * ROWS_IN_BAND; row++) {
+            key = mix(key * 31 + signature[row]);
+        }
+        return key;
+    }
+
+    /**
+     * Computes the MinHash signature of the shingles of SHINGLE_SIZE words of the text,
+     * the words are compared without their case
+     * @param tokenHashes - the hashes of the white space separated tokens of the text
+     * @return the minimal value of every hash function over all the shingles
+     */
+    static int[] signature(long[] tokenHashes) {
+        long[] minHashes = new long[NUM_OF_HASHES];
+        Arrays.fill(minHashes, Long.MAX_VALUE);
+        int numOfShingles = Math.max(1, tokenHashes.length - SHINGLE_SIZE + 1);
+        for (int shingle = 0; shingle < numOfShingles; shingle++) {
+            long shingleHash = 0;
+            for (int i = shingle; i < Math.min(shingle + SHINGLE_SIZE, tokenHashes.length); i++) {
+                shingleHash = mix(shingleHash * 31 + tokenHashes[i]);
+            }
+            for (int i = 0; i < NUM_OF_HASHES; i++) {
+                long hash = shingleHash * HASH_MULTIPLIERS[i] + HASH_ADDERS[i];
+                hash ^= hash >>> 31;
+                if (hash < minHashes[i]) {
+                    minHashes[i] = hash;
+                }
+            }
+        }
+        int[] signature = new int[NUM_OF_HASHES];
+        for (int i = 0; i < NUM_OF_HASHES; i++) {
+            signature[i] = (int) (minHashes[i] >>> 32);
+        }
+        return signature;
+    }
+
+    /**
+     * Hashes the white space separated tokens of the text as it is scanned, without their case,
+     * the tokens themselves are never created
+     * @return the hash of every token, in the order of the text
+     */
+    static long[] tokenHashes(String text) {
+        long[] tokenHashes = new long[16];
+        int numOfTokens = 0;
+        long hash = 0;
+        boolean inToken = false;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || Character.isWhitespace(text.charAt(i))) {
+                if (inToken) {
+                    if (numOfTokens == tokenHashes.length) {
+                        tokenHashes = Arrays.copyOf(tokenHashes, numOfTokens * 2);
+                    }
+                    tokenHashes[numOfTokens++] = hash;
+                    inToken = false;
+                }
+                continue;
+            }
+            if (!inToken) {
+                hash = 0xcbf29ce484222325L;
+                inToken = true;
+            }
+            hash = (hash ^ Character.toLowerCase(text.charAt(i))) * 0x100000001b3L;
+        }
+        return Arrays.copyOf(tokenHashes, numOfTokens);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    public synchronized long getNumOfCollapsedDocs() {
+        return numOfCollapsedDocs;
+    }
+
+    /**
+     * @return the part of the checked documents, and of their tokens, that was collapsed and not indexed
+     */
+    public synchronized String report() {
+        return String.format("Near duplicates: collapsed %d of %d documents (%.2f%%), %d of %d tokens were not indexed (%.2f%%)",
+                numOfCollapsedDocs, numOfCheckedDocs, percent(numOfCollapsedDocs, numOfCheckedDocs),
+                numOfCollapsedTokens, numOfCheckedTokens, percent(numOfCollapsedTokens, numOfCheckedTokens));
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : 100.0 * part / total;
+    }
+
+    @Override
+    public String getStateName() {
+        return "nearDuplicates";
+    }
+
+    /**
+     * Writes the signatures of the indexed documents and the collapsed documents
+     */
+    @Override
+    public synchronized void writeState(Path stateFile) throws IOException {
+        DocRegistry registry = DocRegistry.getInstance();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(stateFile.toFile())))) {
+            out.writeLong(numOfCheckedDocs);
+            out.writeLong(numOfCheckedTokens);
+            out.writeLong(numOfCollapsedTokens);
+            out.writeInt(signatures.size());
+            for (Map.Entry<Integer, int[]> signature :
+                    signatures.entrySet()) {
+                out.writeInt(signature.getKey());
+                for (int hash :
+                        signature.getValue()) {
+                    out.writeInt(hash);
+                }
+            }
+            List<String[]> collapsed = registry.getCollapsed();
+            out.writeInt(collapsed.size());
+            for (String[] collapsedDoc :
+                    collapsed) {
+                out.writeUTF(collapsedDoc[0]);
+                out.writeInt(Integer.parseInt(collapsedDoc[1]));
+            }
+        }
+    }
+
+    /**
+     * Reads the state of a checkpoint, the collapsed documents are registered again in the {@link DocRegistry}
+     */
+    @Override
+    public synchronized void readState(Path stateFile) throws IOException {
+        for (Map<Long, List<Integer>> bandTable :
+                bandTables) {
+            bandTable.clear();
+        }
+        signatures.clear();
+        DocRegistry registry = DocRegistry.getInstance();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(stateFile.toFile())))) {
+            numOfCheckedDocs = in.readLong();
+            numOfCheckedTokens = in.readLong();
+            numOfCollapsedTokens = in.readLong();
+            int numOfSignatures = in.readInt();
+            for (int i = 0; i < numOfSignatures; i++) {
+                int docId = in.readInt();
+                int[] signature = new int[NUM_OF_HASHES];
+                for (int hash = 0; hash < NUM_OF_HASHES; hash++) {
+                    signature[hash] = in.readInt();
+                }
+                addSignature(docId, signature);
+            }
+            numOfCollapsedDocs = in.readInt();
+            for (int i = 0; i < numOfCollapsedDocs; i++) {
+                registry.registerCollapsed(in.readUTF(), in.readInt());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return report();
+    }
+}
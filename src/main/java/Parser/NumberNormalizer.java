@@ -0,0 +1,140 @@
+package Parser;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Parses and formats the numbers of the number, price and percentage rules.
+ * A number made of digits, thousands separators and at most one decimal point is parsed straight from its chars,
+ * the value is the same double Double.parseDouble gives since the digits and the power of ten are exact doubles.
+ * A double is formatted like DecimalFormat("#.###") into a buffer that is reused, rounded half up from its binary value.
+ * Away from the middle of two 3 decimals numbers this is the rounding of DecimalFormat,
+ * a double that is too close to the middle is formatted by DecimalFormat itself, which settles the ties its own way.
+ * Any other number (signs, exponents, hex, more than 15 digits) goes through the old path:
+ * NumberUtils.isNumber and Double.parseDouble on the number without the commas, and DecimalFormat.
+ * The decimal point is always '.', whatever the default locale is, on both paths.
+ * One instance per parser thread.
+ */
+public class NumberNormalizer {
+
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double MAX_FAST_FORMAT = 1e12;
+    private static final double MAX_PLAIN_INTEGER = 1e7;
+    private static final double TIE_EPSILON = 1e-6;
+    private static final double[] POWERS_OF_TEN = new double[MAX_FAST_DIGITS + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final StringBuilder buffer = new StringBuilder(32);
+    private final DecimalFormat format3Decimals = newFormat3Decimals();
+
+    /**
+     * @return DecimalFormat("#.###") with '.' as the decimal point, the format of the numbers of all the rules
+     */
+    public static DecimalFormat newFormat3Decimals() {
+        return new DecimalFormat("#.###", DecimalFormatSymbols.getInstance(Locale.US));
+    }
+
+    /**
+     * Parses a number that may have thousands separators
+     * @param number - the number, without punctuation at its end
+     * @return the value of the number or 0 if it is not a number
+     * @throws NumberFormatException if NumberUtils accepts the number but Double.parseDouble does not
+     */
+    public double parse(String number) throws NumberFormatException {
+        long mantissa = 0;
+        int numOfDigits = 0;
+        int scale = -1;
+        boolean leadingZero = false;
+        int length = number.length();
+        for (int i = 0; i < length; i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (numOfDigits == 1 && mantissa == 0 && scale < 0) {
+                    leadingZero = true;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                numOfDigits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+            else if (c == '.' && scale < 0 && numOfDigits > 0) {
+                scale = 0;
+            }
+            else if (c != ',') {
+                return parseSlow(number);
+            }
+        }
+        if (numOfDigits == 0 || numOfDigits > MAX_FAST_DIGITS || scale == 0 || leadingZero) {
+            return parseSlow(number);
+        }
+        return scale < 0 ? mantissa : mantissa / POWERS_OF_TEN[scale];
+    }
+
+    private double parseSlow(String number) throws NumberFormatException {
+        String withoutCommas = number.replace(",", "");
+        if (NumberUtils.isNumber(withoutCommas)) {
+            return Double.parseDouble(withoutCommas);
+        }
+        return 0.0;
+    }
+
+    /**
+     * @return the number as DecimalFormat("#.###") formats it
+     */
+    public String format(double number) {
+        if (!(number >= 0 && number < MAX_FAST_FORMAT)) {
+            return format3Decimals.format(number);
+        }
+        long integerPart = (long) number;
+        double fraction = number - integerPart;
+        long thousandths = 0;
+        if (fraction > 0) {
+            double scaledFraction = fraction * 1000;
+            thousandths = (long) Math.floor(scaledFraction);
+            double remainder = scaledFraction - thousandths;
+            if (Math.abs(remainder - 0.5) < TIE_EPSILON) {
+                return format3Decimals.format(number);
+            }
+            if (remainder > 0.5) {
+                thousandths++;
+            }
+            if (thousandths >= 1000) {
+                integerPart += thousandths / 1000;
+                thousandths %= 1000;
+            }
+        }
+        buffer.setLength(0);
+        buffer.append(integerPart);
+        if (thousandths > 0) {
+            buffer.append('.');
+            int divisor = 100;
+            while (thousandths > 0) {
+                buffer.append((char) ('0' + thousandths / divisor));
+                thousandths %= divisor;
+                divisor /= 10;
+            }
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * @return the number as number + "" gives it
+     */
+    public String toString(double number) {
+        if (number >= 0 && number < MAX_PLAIN_INTEGER && number == Math.rint(number)) {
+            buffer.setLength(0);
+            return buffer.append((long) number).append(".0").toString();
+        }
+        return Double.toString(number);
+    }
+}
@@ -0,0 +1,248 @@
+package Parser;
+
+import Tokenizer.TextScanner;
+import org.apache.commons.lang3.math.NumberUtils;
+import readFile.TrecDocSplitter;
+
+import java.io.File;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Golden check and benchmark of the {@link NumberNormalizer} against the number rules MainParse used before it:
+ * replaceAll(",", ""), NumberUtils.isNumber and Double.parseDouble to parse, DecimalFormat("#.###") and number + "" to format.
+ * Every number is turned into the terms of the number rule (K/M/B), the quantified rule and the price rule
+ * by both paths, a single different term fails the check.
+ * The numbers are the number tokens of a corpus folder, if one is given, and generated numbers:
+ * thousands separators, decimals, values around the K/M/B bounds and values in the middle of two 3 decimals numbers.
+ * usage: NumberNormalizerBenchmark [corpusPath] [rounds]
+ */
+public class NumberNormalizerBenchmark {
+
+    private static final double THOUSAND = 1000;
+    private static final double MILLION = 1000000;
+    private static final double BILLION = 1000000000;
+    private static final int NUM_OF_GENERATED_NUMBERS = 2000000;
+
+    private final DecimalFormat format3Decimals = NumberNormalizer.newFormat3Decimals();
+    private final NumberNormalizer numberNormalizer = new NumberNormalizer();
+
+    public static void main(String[] args) throws Exception {
+        List<String> numbers = new ArrayList<>();
+        int rounds = 5;
+        if (args.length > 0) {
+            loadNumbers(new File(args[0]), numbers);
+            System.out.println(numbers.size() + " number tokens in the corpus");
+            if (args.length > 1) {
+                rounds = Integer.parseInt(args[1]);
+            }
+        }
+        generateNumbers(numbers, new Random(2018));
+
+        NumberNormalizerBenchmark benchmark = new NumberNormalizerBenchmark();
+        int numOfDifferences = benchmark.check(numbers);
+        System.out.println(numOfDifferences == 0 ? "Golden check passed: " + numbers.size() + " numbers, 3 terms each"
+                : "Golden check FAILED: " + numOfDifferences + " different terms");
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round);
+            benchmark.runOld(numbers);
+            benchmark.runNormalizer(numbers);
+        }
+    }
+
+    private int check(List<String> numbers) {
+        int numOfDifferences = 0;
+        for (String number :
+                numbers) {
+            String[] oldTerms = {oldNumberTerm(number), oldQuantifiedTerm(number), oldPriceTerm(number)};
+            String[] newTerms = {numberTerm(number), quantifiedTerm(number), priceTerm(number)};
+            for (int i = 0; i < oldTerms.length; i++) {
+                if (oldTerms[i] == null ? newTerms[i] != null : !oldTerms[i].equals(newTerms[i])) {
+                    if (numOfDifferences++ < 10) {
+                        System.out.println("Different term for " + number + ": " + oldTerms[i] + " / " + newTerms[i]);
+                    }
+                }
+            }
+        }
+        return numOfDifferences;
+    }
+
+    private void runOld(List<String> numbers) {
+        long startTime = System.nanoTime();
+        long checksum = 0;
+        for (String number :
+                numbers) {
+            checksum += length(oldNumberTerm(number)) + length(oldQuantifiedTerm(number)) + length(oldPriceTerm(number));
+        }
+        printResult("Old", numbers.size(), System.nanoTime() - startTime, checksum);
+    }
+
+    private void runNormalizer(List<String> numbers) {
+        long startTime = System.nanoTime();
+        long checksum = 0;
+        for (String number :
+                numbers) {
+            checksum += length(numberTerm(number)) + length(quantifiedTerm(number)) + length(priceTerm(number));
+        }
+        printResult("Normal", numbers.size(), System.nanoTime() - startTime, checksum);
+    }
+
+    private static int length(String term) {
+        return term == null ? 0 : term.length();
+    }
+
+    private String oldNumberTerm(String number) {
+        double importantNumber;
+        try {
+            importantNumber = oldGetNumber(number);
+        } catch (Exception e) {
+            return null;
+        }
+        return oldFormatWithSuffix(importantNumber);
+    }
+
+    private String oldFormatWithSuffix(double importantNumber) {
+        if (importantNumber < THOUSAND) {
+            return format3Decimals.format(importantNumber);
+        }
+        else if (importantNumber < MILLION) {
+            return format3Decimals.format(importantNumber / THOUSAND) + "K";
+        }
+        else if (importantNumber < BILLION) {
+            return format3Decimals.format(importantNumber / MILLION) + "M";
+        }
+        return format3Decimals.format(importantNumber / BILLION) + "B";
+    }
+
+    private String oldQuantifiedTerm(String number) {
+        try {
+            return oldGetNumber(number) + "M";
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String oldPriceTerm(String number) {
+        double importantNumber;
+        try {
+            importantNumber = oldGetNumber(number);
+        } catch (Exception e) {
+            return "";
+        }
+        String result = format3Decimals.format(importantNumber);
+        return importantNumber >= MILLION ? result + " M" : result;
+    }
+
+    private double oldGetNumber(String number) throws NumberFormatException {
+        double numberInString = 0.0;
+        if (NumberUtils.isNumber(number.replaceAll(",", ""))) {
+            numberInString = Double.parseDouble(number.replaceAll(",", ""));
+        }
+        return numberInString;
+    }
+
+    private String numberTerm(String number) {
+        double importantNumber;
+        try {
+            importantNumber = numberNormalizer.parse(number);
+        } catch (Exception e) {
+            return null;
+        }
+        if (importantNumber < THOUSAND) {
+            return numberNormalizer.format(importantNumber);
+        }
+        else if (importantNumber < MILLION) {
+            return numberNormalizer.format(importantNumber / THOUSAND) + "K";
+        }
+        else if (importantNumber < BILLION) {
+            return numberNormalizer.format(importantNumber / MILLION) + "M";
+        }
+        return numberNormalizer.format(importantNumber / BILLION) + "B";
+    }
+
+    private String quantifiedTerm(String number) {
+        try {
+            return numberNormalizer.toString(numberNormalizer.parse(number)) + "M";
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private String priceTerm(String number) {
+        double importantNumber;
+        try {
+            importantNumber = numberNormalizer.parse(number);
+        } catch (Exception e) {
+            return "";
+        }
+        String result = numberNormalizer.format(importantNumber);
+        return importantNumber >= MILLION ? result + " M" : result;
+    }
+
+    private static void generateNumbers(List<String> numbers, Random random) {
+        String[] fixed = {"0", "0.0005", "0.0015", "0.0025", "1.0005", "999.9995", "999999", "1000000", "999999999",
+                "1000000000", "999999500", "999999499", "1234500", "1235500", "2,5", ",,7", "1,2,3.4", "007", "0.5",
+                "5.", ".5", "1e5", "0x1F", "1L", "-5", "123456789012345", "1234567890123456", "99999999999999999999",
+                "1.2.3", "12,345,678.9125", "3/4", "1,000", "10,000,000"};
+        for (String number :
+                fixed) {
+            numbers.add(number);
+        }
+        for (int i = 0; i < NUM_OF_GENERATED_NUMBERS; i++) {
+            StringBuilder number = new StringBuilder();
+            int numOfDigits = 1 + random.nextInt(random.nextBoolean() ? 4 : 13);
+            for (int digit = 0; digit < numOfDigits; digit++) {
+                number.append(digit == 0 ? (char) ('1' + random.nextInt(9)) : (char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextInt(3) == 0) {
+                // thousands separators
+                for (int comma = number.length() - 3; comma > 0; comma -= 3) {
+                    number.insert(comma, ',');
+                }
+            }
+            if (random.nextInt(3) == 0) {
+                number.append('.');
+                int numOfDecimals = 1 + random.nextInt(5);
+                for (int digit = 0; digit < numOfDecimals; digit++) {
+                    number.append((char) ('0' + random.nextInt(10)));
+                }
+                if (random.nextInt(4) == 0) {
+                    // a tie of the 3 decimals rounding
+                    number.setLength(number.length() - numOfDecimals);
+                    number.append(random.nextInt(10)).append(random.nextInt(10)).append(random.nextInt(10)).append('5');
+                }
+            }
+            numbers.add(number.toString());
+        }
+    }
+
+    private static void loadNumbers(File folder, List<String> numbers) throws Exception {
+        TextScanner scanner = new TextScanner();
+        for (File file : folder.listFiles()) {
+            if (file.isDirectory()) {
+                loadNumbers(file, numbers);
+            }
+            else {
+                TrecDocSplitter splitter = TrecDocSplitter.open(file);
+                IR.Document document;
+                while ((document = splitter.nextDocument()) != null) {
+                    scanner.scan(document.getText());
+                    for (int index = 0; index < scanner.size(); index++) {
+                        if (scanner.cleanLength(index) > 0 && Character.isDigit(scanner.cleanFirstChar(index))) {
+                            numbers.add(scanner.cleanToken(index));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void printResult(String name, long numOfNumbers, long nanos, long checksum) {
+        double seconds = nanos / 1000000000.0;
+        System.out.println(String.format("%-8s %d numbers in %.3f Seconds, %.0f numbers/sec (checksum %d)",
+                name, numOfNumbers, seconds, numOfNumbers / seconds, checksum));
+    }
+}
@@ -0,0 +1,17 @@
+package Parser;
+
+/**
+ * A rule that turns the current token of a parser into terms.
+ * The rules of a token class are tried in the order they were registered until one of them takes the token.
+ * @see ParseRuleRegistry
+ */
+@FunctionalInterface
+public interface ParseRule {
+
+    /**
+     * @param cleanWord - the current token without the punctuation at its ends
+     * @param index - the index of the token in the text
+     * @return true if the rule took the token and the next rules should not try it
+     */
+    boolean parse(String cleanWord, int index);
+}
@@ -0,0 +1,169 @@
+package Parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The parse rules of a parser, kept in a chain per token class.
+ * A token is dispatched by its class straight to its chain, the rules of the chain are tried in order until one takes it.
+ * Every rule has counters of the tokens it took (hits), the tokens it passed on (misses) and the time it spent,
+ * the counters of a rule are shared by all the parsers and are reported by {@link #report()}.
+ * A rule can be switched off by its name, before the parsers are created, with {@link #setEnabled(String, boolean)}
+ * or with the system property parser.disabledRules (names separated by commas, e.g. -Dparser.disabledRules=Dates,Names).
+ * A rule that is off is not put in the chains, its tokens go on to the next rule of the chain.
+ * One registry per parser thread.
+ */
+public class ParseRuleRegistry {
+
+    public static final String DISABLED_RULES_PROPERTY = "parser.disabledRules";
+    private static final Map<String, RuleCounters> counters = new LinkedHashMap<>();
+    private static final Set<String> disabledRules = new HashSet<>();
+
+    static {
+        String disabled = System.getProperty(DISABLED_RULES_PROPERTY, "");
+        for (String name :
+                disabled.split(",")) {
+            if (!name.trim().isEmpty()) {
+                disabledRules.add(name.trim());
+            }
+        }
+    }
+
+    private final ParseRule[][] rules = new ParseRule[TokenClass.values().length][0];
+    private final RuleCounters[][] ruleCounters = new RuleCounters[TokenClass.values().length][0];
+
+    /**
+     * Adds a rule at the end of the chain of a token class, a rule that is off is left out
+     * @param tokenClass - the class of the tokens the rule is tried on
+     * @param name - the name of the rule, a rule may be in more than one chain under the same name
+     * @param rule - the rule
+     */
+    public void register(TokenClass tokenClass, String name, ParseRule rule) {
+        if (!isEnabled(name)) {
+            return;
+        }
+        int classIndex = tokenClass.ordinal();
+        int length = rules[classIndex].length;
+        rules[classIndex] = Arrays.copyOf(rules[classIndex], length + 1);
+        rules[classIndex][length] = rule;
+        ruleCounters[classIndex] = Arrays.copyOf(ruleCounters[classIndex], length + 1);
+        ruleCounters[classIndex][length] = countersOf(name);
+    }
+
+    /**
+     * Tries the rules of the token class on the token until one of them takes it
+     * @return true if a rule took the token
+     */
+    public boolean parse(TokenClass tokenClass, String cleanWord, int index) {
+        ParseRule[] chain = rules[tokenClass.ordinal()];
+        RuleCounters[] chainCounters = ruleCounters[tokenClass.ordinal()];
+        for (int rule = 0; rule < chain.length; rule++) {
+            RuleCounters counter = chainCounters[rule];
+            long startTime = System.nanoTime();
+            boolean isParsed = chain[rule].parse(cleanWord, index);
+            counter.nanos.add(System.nanoTime() - startTime);
+            if (isParsed) {
+                counter.hits.increment();
+                return true;
+            }
+            counter.misses.increment();
+        }
+        return false;
+    }
+
+    /**
+     * @return the names of the rules of the token class, in the order they are tried
+     */
+    public List<String> getRuleNames(TokenClass tokenClass) {
+        List<String> names = new ArrayList<>();
+        for (RuleCounters counter :
+                ruleCounters[tokenClass.ordinal()]) {
+            names.add(counter.name);
+        }
+        return names;
+    }
+
+    public static boolean isEnabled(String name) {
+        synchronized (disabledRules) {
+            return !disabledRules.contains(name);
+        }
+    }
+
+    /**
+     * Switches a rule on or off, only parsers that are created afterwards are affected
+     */
+    public static void setEnabled(String name, boolean enabled) {
+        synchronized (disabledRules) {
+            if (enabled) {
+                disabledRules.remove(name);
+            }
+            else {
+                disabledRules.add(name);
+            }
+        }
+    }
+
+    private static RuleCounters countersOf(String name) {
+        synchronized (counters) {
+            RuleCounters counter = counters.get(name);
+            if (counter == null) {
+                counter = new RuleCounters(name);
+                counters.put(name, counter);
+            }
+            return counter;
+        }
+    }
+
+    /**
+     * Zeroes the counters of all the rules
+     */
+    public static void resetCounters() {
+        synchronized (counters) {
+            for (RuleCounters counter :
+                    counters.values()) {
+                counter.hits.reset();
+                counter.misses.reset();
+                counter.nanos.reset();
+            }
+        }
+    }
+
+    /**
+     * @return a line per rule with its hits, misses and time
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder("Parse rules:");
+        synchronized (counters) {
+            for (RuleCounters counter :
+                    counters.values()) {
+                long hits = counter.hits.sum();
+                long tries = hits + counter.misses.sum();
+                report.append(String.format("%n  %-14s %10d tries %10d hits (%6.2f%%) %9.3f Seconds",
+                        counter.name, tries, hits, tries == 0 ? 0 : 100.0 * hits / tries, counter.nanos.sum() / 1000000000.0));
+            }
+        }
+        synchronized (disabledRules) {
+            if (!disabledRules.isEmpty()) {
+                report.append(String.format("%n  off: %s", disabledRules));
+            }
+        }
+        return report.toString();
+    }
+
+    private static class RuleCounters {
+        private final String name;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private RuleCounters(String name) {
+            this.name = name;
+        }
+    }
+}
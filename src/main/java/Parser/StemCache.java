@@ -0,0 +1,106 @@
+package Parser;
+
+import org.tartarus.snowball.ext.englishStemmer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Public Singelton that stems words with the Snowball english stemmer and remembers the stems.
+ * The vocabulary of a corpus is Zipfian so most of the words are stemmed once and then found in the cache.
+ * The cache is shared by all the parsers, every parser thread has its own stemmer since a stemmer holds state.
+ * The cache is bounded, once it holds MAX_CACHED_WORDS words new words are stemmed but not kept,
+ * the frequent words enter it first.
+ * The stem keeps the case of the word: a word in upper case gets a stem in upper case, a capitalized word a capitalized stem.
+ */
+public class StemCache {
+
+    private static final int MAX_CACHED_WORDS = 500000;
+    private static volatile StemCache mInstance;
+    private final ConcurrentHashMap<String, String> stems;
+    private final ThreadLocal<englishStemmer> stemmers;
+    private final AtomicLong numOfHits = new AtomicLong(0);
+    private final AtomicLong numOfMisses = new AtomicLong(0);
+
+    private StemCache() {
+        stems = new ConcurrentHashMap<>();
+        stemmers = ThreadLocal.withInitial(englishStemmer::new);
+    }
+
+    public static StemCache getInstance() {
+        if (mInstance == null) {
+            synchronized (StemCache.class) {
+                if (mInstance == null) {
+                    mInstance = new StemCache();
+                }
+            }
+        }
+        return mInstance;
+    }
+
+    /**
+     * @param word - a word of letters only
+     * @return the stem of the word, from the cache if it was stemmed before
+     */
+    public String stem(String word) {
+        String stem = stems.get(word);
+        if (stem != null) {
+            numOfHits.incrementAndGet();
+            return stem;
+        }
+        numOfMisses.incrementAndGet();
+        stem = stemWord(word);
+        if (stems.size() < MAX_CACHED_WORDS) {
+            stems.putIfAbsent(word, stem);
+        }
+        return stem;
+    }
+
+    private String stemWord(String word) {
+        String lowerCaseWord = word.toLowerCase();
+        englishStemmer stemmer = stemmers.get();
+        stemmer.setCurrent(lowerCaseWord);
+        stemmer.stem();
+        String stem = stemmer.getCurrent();
+        if (word.equals(lowerCaseWord) || stem.isEmpty()) {
+            return stem;
+        }
+        if (word.equals(word.toUpperCase())) {
+            return stem.toUpperCase();
+        }
+        return Character.toUpperCase(stem.charAt(0)) + stem.substring(1);
+    }
+
+    public long getNumOfHits() {
+        return numOfHits.get();
+    }
+
+    public long getNumOfMisses() {
+        return numOfMisses.get();
+    }
+
+    /**
+     * @return the part of the words that were found in the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = numOfHits.get();
+        long lookups = hits + numOfMisses.get();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public int size() {
+        return stems.size();
+    }
+
+    public void clear() {
+        stems.clear();
+        numOfHits.set(0);
+        numOfMisses.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Stem cache: %d hits, %d misses (%.2f%% hit rate), %d words cached",
+                numOfHits.get(), numOfMisses.get(), 100 * getHitRate(), stems.size());
+    }
+}
@@ -0,0 +1,141 @@
+package Parser;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of stop words that is looked up straight over the chars of a token, without creating a String.
+ * Every word is kept once in lower case in an open addressing table, the hash of a token is computed over its chars
+ * in lower case so the lookup ignores the case without changing the token.
+ * The stop words files hold lower case words.
+ */
+public class StopWordSet {
+
+    private final String[] words;
+    private final int mask;
+    private int size;
+
+    private StopWordSet(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity * 2) - 1) << 1;
+        words = new String[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Reads a stop words file, one word in a line
+     * @param stopWordsFile - the file of the stop words
+     * @return the stop words, empty if the file could not be read
+     */
+    public static StopWordSet load(File stopWordsFile) {
+        if (!stopWordsFile.exists()) {
+            System.out.println(stopWordsFile.getAbsolutePath());
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader stopWordsReader = new BufferedReader(new FileReader(stopWordsFile))) {
+            String word = stopWordsReader.readLine();
+            while (word != null) {
+                lines.add(word);
+                word = stopWordsReader.readLine();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        StopWordSet stopWords = new StopWordSet(lines.size());
+        for (String word :
+                lines) {
+            stopWords.add(word.toLowerCase());
+        }
+        return stopWords;
+    }
+
+    private void add(String word) {
+        int slot = hash(word, 0, word.length()) & mask;
+        while (words[slot] != null) {
+            if (words[slot].equals(word)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        words[slot] = word;
+        size++;
+    }
+
+    /**
+     * @return true if the chars are a stop word in any case
+     */
+    public boolean containsIgnoreCase(CharSequence chars) {
+        return containsIgnoreCase(chars, 0, chars.length());
+    }
+
+    /**
+     * @return true if the chars between start and end are a stop word in any case
+     */
+    public boolean containsIgnoreCase(CharSequence chars, int start, int end) {
+        int slot = hash(chars, start, end) & mask;
+        String word;
+        while ((word = words[slot]) != null) {
+            if (equalsIgnoreCase(word, chars, start, end)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * The lookup the parsers did with the word as it is: a stop word matches only in lower case or in upper case
+     * @return true if the chars are a stop word in lower case or in upper case
+     */
+    public boolean contains(CharSequence chars) {
+        int slot = hash(chars, 0, chars.length()) & mask;
+        String word;
+        while ((word = words[slot]) != null) {
+            if (equalsLowerOrUpperCase(word, chars)) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int hash(CharSequence chars, int start, int end) {
+        int hash = 0x811c9dc5;
+        for (int i = start; i < end; i++) {
+            hash = (hash ^ Character.toLowerCase(chars.charAt(i))) * 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean equalsLowerOrUpperCase(String word, CharSequence chars) {
+        if (word.length() != chars.length()) {
+            return false;
+        }
+        boolean isLowerCase = true;
+        boolean isUpperCase = true;
+        for (int i = 0; i < word.length() && (isLowerCase || isUpperCase); i++) {
+            char c = chars.charAt(i);
+            isLowerCase &= c == word.charAt(i);
+            isUpperCase &= c == Character.toUpperCase(word.charAt(i));
+        }
+        return isLowerCase || isUpperCase;
+    }
+
+    private static boolean equalsIgnoreCase(String word, CharSequence chars, int start, int end) {
+        if (word.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (word.charAt(i) != Character.toLowerCase(chars.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
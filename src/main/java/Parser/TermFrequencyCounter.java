@@ -0,0 +1,103 @@
+package Parser;
+
+/**
+ * Counts the occurrences of the terms of a single document.
+ * An open addressing table of the terms and a parallel primitive array of their counts,
+ * so counting an occurrence is a hash lookup without creating objects.
+ * The terms are kept in the order they first occurred, the table is reused from document to document.
+ */
+public class TermFrequencyCounter {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private String[] terms;
+    private int[] counts;
+    private int[] slotsInOrder;
+    private int size;
+    private int mask;
+
+    public TermFrequencyCounter() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        terms = new String[capacity];
+        counts = new int[capacity];
+        slotsInOrder = new int[capacity / 2];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    /**
+     * Counts another occurrence of the term
+     * @param term - a term of the document
+     */
+    public void add(String term) {
+        int slot = term.hashCode() & mask;
+        while (terms[slot] != null) {
+            if (terms[slot].equals(term)) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        terms[slot] = term;
+        counts[slot] = 1;
+        slotsInOrder[size++] = slot;
+        if (size == slotsInOrder.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        String[] oldTerms = terms;
+        int[] oldCounts = counts;
+        int[] oldSlotsInOrder = slotsInOrder;
+        int oldSize = size;
+        allocate(terms.length * 2);
+        for (int i = 0; i < oldSize; i++) {
+            int oldSlot = oldSlotsInOrder[i];
+            int slot = oldTerms[oldSlot].hashCode() & mask;
+            while (terms[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            terms[slot] = oldTerms[oldSlot];
+            counts[slot] = oldCounts[oldSlot];
+            slotsInOrder[size++] = slot;
+        }
+    }
+
+    /**
+     * @return the number of different terms counted
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index - 0 to size()-1, by the order the terms first occurred
+     */
+    public String termAt(int index) {
+        return terms[slotsInOrder[index]];
+    }
+
+    /**
+     * @param index - 0 to size()-1, by the order the terms first occurred
+     */
+    public int countAt(int index) {
+        return counts[slotsInOrder[index]];
+    }
+
+    /**
+     * Forgets all the terms, only the used slots are cleared
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            terms[slotsInOrder[i]] = null;
+        }
+        if (size > INITIAL_CAPACITY * 16) {
+            allocate(INITIAL_CAPACITY);
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,71 @@
+package Parser;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Public Singelton that gives every term a single String instance, shared by all the parser threads.
+ * The parsers resolve a term through the pool the first time it enters their batch, so the batches of all the parsers
+ * and the maps of the Indexer they are merged into hold the same instance instead of a copy per batch.
+ * The pool is bounded, once it holds MAX_POOLED_TERMS terms new terms are kept as they are,
+ * the frequent terms enter it first.
+ */
+public class TermPool {
+
+    private static final int MAX_POOLED_TERMS = 1000000;
+    private static volatile TermPool mInstance;
+    private final ConcurrentHashMap<String, String> terms;
+    private final AtomicLong numOfHits = new AtomicLong(0);
+    private final AtomicLong numOfMisses = new AtomicLong(0);
+
+    private TermPool() {
+        terms = new ConcurrentHashMap<>();
+    }
+
+    public static TermPool getInstance() {
+        if (mInstance == null) {
+            synchronized (TermPool.class) {
+                if (mInstance == null) {
+                    mInstance = new TermPool();
+                }
+            }
+        }
+        return mInstance;
+    }
+
+    /**
+     * @param term - a parsed term
+     * @return the pooled instance of the term, the term itself if it is the first one or the pool is full
+     */
+    public String intern(String term) {
+        String pooledTerm = terms.get(term);
+        if (pooledTerm != null) {
+            numOfHits.incrementAndGet();
+            return pooledTerm;
+        }
+        numOfMisses.incrementAndGet();
+        if (terms.size() >= MAX_POOLED_TERMS) {
+            return term;
+        }
+        pooledTerm = terms.putIfAbsent(term, term);
+        return pooledTerm == null ? term : pooledTerm;
+    }
+
+    public int size() {
+        return terms.size();
+    }
+
+    public void clear() {
+        terms.clear();
+        numOfHits.set(0);
+        numOfMisses.set(0);
+    }
+
+    @Override
+    public String toString() {
+        long hits = numOfHits.get();
+        long lookups = hits + numOfMisses.get();
+        return String.format("Term pool: %d terms, %d of %d batch terms shared an instance (%.2f%%)",
+                terms.size(), hits, lookups, lookups == 0 ? 0 : 100.0 * hits / lookups);
+    }
+}
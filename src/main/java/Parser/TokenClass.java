@@ -0,0 +1,34 @@
+package Parser;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * The class of a clean token, decided by its first char, the parse rules of MainParse are registered by it.
+ * NUMBER - a token that is a number, like NumberUtils.isNumber takes it
+ * DIGIT - a token that starts with a digit and is not a number (percentages, fractions, ranges)
+ * UPPER - a token that starts with an upper case letter
+ * DOLLAR - a token that starts with '$'
+ * OTHER - any other token with a char that is not an english letter
+ * LOWER - a token of english letters only that starts with a lower case letter
+ */
+public enum TokenClass {
+    NUMBER, DIGIT, UPPER, DOLLAR, OTHER, LOWER;
+
+    /**
+     * @param cleanWord - a token without the punctuation at its ends, not empty
+     * @return the class of the token
+     */
+    public static TokenClass of(String cleanWord) {
+        char first = cleanWord.charAt(0);
+        if (Character.isDigit(first)) {
+            return NumberUtils.isNumber(cleanWord) ? NUMBER : DIGIT;
+        }
+        if (Character.isUpperCase(first)) {
+            return UPPER;
+        }
+        if (!MainParse.checkAlphaBet(cleanWord)) {
+            return first == '$' ? DOLLAR : OTHER;
+        }
+        return LOWER;
+    }
+}
@@ -25,9 +25,9 @@ public class parseNames extends AParser {
 //            i=0;
 //            Document document = dequeueDoc();
 //
-//            splitedText = document.getDocText().text().split(" ");
+//            splitedText = document.getText().split(" ");
 //
-//            //splitedText = document.getDocText().text().split("[\\s?!();\":\\n\\t/*]");
+//            //splitedText = document.getText().split("[\\s?!();\":\\n\\t/*]");
 //
 //            for (String word : splitedText) {
 //                /*
@@ -44,28 +44,28 @@ public class parseNames extends AParser {
 //
 //                if(fourSentece.matches("[A-Z]+[a-z]*\\s[A-Z]+[a-z]*\\s[A-Z]+[a-z]*\\s[A-Z]+[a-z]*")){
 //                    //System.out.println(fourSentece);
-//                    parsedTermInsert(fourSentece,document.getDocNo());
+//                    parsedTermInsert(fourSentece,document.getDocId());
 //                }
 //                 else if(thirdSentece.matches("[A-Z]+[a-z]*\\s[A-Z]+[a-z]*\\s[A-Z]+[a-z]*")){
 //                    //System.out.println(thirdSentece);
-//                    parsedTermInsert(thirdSentece,document.getDocNo());
+//                    parsedTermInsert(thirdSentece,document.getDocId());
 //
 //                }
 //                 else if(thirdSentece.matches("[A-Z]+[a-z]*\\s[A-Z]+[a-z]*")){
 //                    //System.out.println(thirdSentece);
-//                    parsedTermInsert(secondSentece,document.getDocNo());
+//                    parsedTermInsert(secondSentece,document.getDocId());
 //                }
 //
 //                 if(word.matches("[A-Z]+[a-z]*")){
-//                    parsedTermInsert(word,document.getDocNo());
+//                    parsedTermInsert(word,document.getDocId());
 //                }
-//                 //parsedTermInsert(word,document.getDocNo());
+//                 //parsedTermInsert(word,document.getDocId());
 //                       sentece.matches("[A-Z]+[a-z]*\\s[A-Z]+[a-z]*\\s[A-Z]+[a-z]*") ||
 //                        sentece.matches("[A-Z]+[a-z]*\\s[A-Z]+[a-z]*")){
-//                    parsedTermInsert(sentece,document.getDocNo());
+//                    parsedTermInsert(sentece,document.getDocId());
 //
 //                        for (String term :terms) {
-//                            parsedTermInsert(term,document.getDocNo());
+//                            parsedTermInsert(term,document.getDocId());
 //                        }
 //                    }
 //                }*/
@@ -78,7 +78,7 @@ public class parseNames extends AParser {
 //                        String[] sentenceLengh = sentence.toString().split(" ");
 //                        if(sentenceLengh.length > 1){
 //                            //System.out.println(sentence);
-//                            parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocNo());
+//                            parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocId());
 //                        }
 //                        sentence.setLength(0);
 //
@@ -90,7 +90,7 @@ public class parseNames extends AParser {
 //                    String[] sentenceLengh = sentence.toString().split(" ");
 //                    if(sentenceLengh.length > 1){
 //                        //System.out.println(sentence);
-//                        parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocNo());
+//                        parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocId());
 //                    }
 //                    sentence.setLength(0);
 //                }
@@ -111,9 +111,9 @@ public class parseNames extends AParser {
     }
 
     public void parseNoThread(Document document){
-        //splitedText = StringUtils.split(document.getDocText().text()," ");
-        //splitedText = document.getDocText().text().split(" ");
-        splitedText = document.getDocText().text().split("[\\s?!();\":\n\r\\t/*]");
+        //splitedText = StringUtils.split(document.getText()," ");
+        //splitedText = document.getText().split(" ");
+        splitedText = document.getText().split("[\\s?!();\":\n\r\\t/*]");
         numOfWords=0;
         for (String word : splitedText) {
 
@@ -128,7 +128,7 @@ public class parseNames extends AParser {
                     //String[] sentenceLengh = sentence.toString().split(" ");
                     if(numOfWords > 1){
                         //System.out.println(sentence);
-                        parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocNo());
+                        parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocId());
                     }
                     numOfWords=0;
                     sentence.setLength(0);
@@ -141,7 +141,7 @@ public class parseNames extends AParser {
                 //String[] sentenceLengh = sentence.toString().split(" ");
 
                     //System.out.println(sentence);
-                    parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocNo());
+                    parsedTermInsert(sentence.substring(0, sentence.length() - 1), document.getDocId());
                 numOfWords=0;
                 sentence.setLength(0);
             }
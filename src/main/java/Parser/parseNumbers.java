@@ -30,7 +30,7 @@ public class parseNumbers extends AParser{
 //        allNumbersInText = new HashMap<>();
         parseName = "NumberParser";
 
-        format3Decimals = new DecimalFormat("#.###");
+        format3Decimals = NumberNormalizer.newFormat3Decimals();
     }
 
 
@@ -51,12 +51,12 @@ public class parseNumbers extends AParser{
 
 //        this.splitDocText(d);
             currentDoc = d;
-            docText = d.getDocText().text().split(" ");
+            docText = d.getText().split(" ");
 
             int countNumberMatch=0,allNumbers=0;
             for (int wordIndex = 0; wordIndex < docText.length; wordIndex++) {
                 String word = docText[wordIndex];
-                if (stopWords.contains(word.toLowerCase())) {
+                if (stopWords.containsIgnoreCase(word)) {
                     continue;
                 }
                 word = chopDownLastCharPunc(word);
@@ -69,7 +69,7 @@ public class parseNumbers extends AParser{
 
                         } else {
                             countNumberMatch++;
-                            parsedTermInsert(theWordParsed, currentDoc.getDocNo());
+                            parsedTermInsert(theWordParsed, currentDoc.getDocId());
                             wordIndex++;
                             continue;
                         }
@@ -79,8 +79,8 @@ public class parseNumbers extends AParser{
 
                     if (word.matches("^\\d+(\\.\\d+)?-\\d+(\\.\\d+)?$")) {
                         String[] splitHifWord = word.split("-");
-                        parsedTermInsert(splitHifWord[0], currentDoc.getDocNo());
-                        parsedTermInsert(splitHifWord[1], currentDoc.getDocNo());
+                        parsedTermInsert(splitHifWord[0], currentDoc.getDocId());
+                        parsedTermInsert(splitHifWord[1], currentDoc.getDocId());
 
                         continue;
                     }
@@ -97,11 +97,11 @@ public class parseNumbers extends AParser{
 
                     else if (word.matches("^\\d+/\\d+$")) {
                         countNumberMatch++;
-                        parsedTermInsert(word, currentDoc.getDocNo());
+                        parsedTermInsert(word, currentDoc.getDocId());
                         continue;
                     } else {
                         countNumberMatch++;
-                        parsedTermInsert(quantifiedWordForDic(word), currentDoc.getDocNo());
+                        parsedTermInsert(quantifiedWordForDic(word), currentDoc.getDocId());
                     }
 
 
@@ -119,12 +119,12 @@ public class parseNumbers extends AParser{
     }
     public void parseNoThread(Document d){
         currentDoc = d;
-        docText = d.getDocText().text().split(" ");
+        docText = d.getText().split(" ");
 
         int countNumberMatch=0,allNumbers=0;
         for (int wordIndex = 0; wordIndex < docText.length; wordIndex++) {
             String word = docText[wordIndex];
-            if (stopWords.contains(word.toLowerCase())) {
+            if (stopWords.containsIgnoreCase(word)) {
                 continue;
             }
             word = chopDownLastCharPunc(word);
@@ -137,7 +137,7 @@ public class parseNumbers extends AParser{
 
                     } else {
                         countNumberMatch++;
-                        parsedTermInsert(theWordParsed, currentDoc.getDocNo());
+                        parsedTermInsert(theWordParsed, currentDoc.getDocId());
                         wordIndex++;
                         continue;
                     }
@@ -147,8 +147,8 @@ public class parseNumbers extends AParser{
 
                 if (word.matches("^\\d+(\\.\\d+)?-\\d+(\\.\\d+)?$")) {
                     String[] splitHifWord = word.split("-");
-                    parsedTermInsert(splitHifWord[0], currentDoc.getDocNo());
-                    parsedTermInsert(splitHifWord[1], currentDoc.getDocNo());
+                    parsedTermInsert(splitHifWord[0], currentDoc.getDocId());
+                    parsedTermInsert(splitHifWord[1], currentDoc.getDocId());
 
                     continue;
                 }
@@ -165,11 +165,11 @@ public class parseNumbers extends AParser{
 
                 else if (word.matches("^\\d+/\\d+$")) {
                     countNumberMatch++;
-                    parsedTermInsert(word, currentDoc.getDocNo());
+                    parsedTermInsert(word, currentDoc.getDocId());
                     continue;
                 } else {
                     countNumberMatch++;
-                    parsedTermInsert(quantifiedWordForDic(word), currentDoc.getDocNo());
+                    parsedTermInsert(quantifiedWordForDic(word), currentDoc.getDocId());
                 }
 
 
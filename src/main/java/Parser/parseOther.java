@@ -9,7 +9,7 @@ public class parseOther extends AParser {
             int i = 0;
             Document document = dequeueDoc();
 
-            String[] splitedText = document.getDocText().text().split(" ");
+            String[] splitedText = document.getText().split(" ");
             for (String word: splitedText) {
 
             }
@@ -15,7 +15,7 @@ public class parsePrices extends AParser {
     public parsePrices() {
         super();
         parseName = "PriceParser";
-        this.format3Decimals = new DecimalFormat("#.###");;
+        this.format3Decimals = NumberNormalizer.newFormat3Decimals();
     }
 
     @Override
@@ -31,12 +31,12 @@ public class parsePrices extends AParser {
 
 //        this.splitDocText(d);
             currentDoc = d;
-            docText = d.getDocText().text().split(" ");
+            docText = d.getText().split(" ");
 
             int countNumberMatch = 0, allNumbers = 0;
             for (int wordIndex = 0; wordIndex < docText.length; wordIndex++) {
                 String word = docText[wordIndex];
-                if (stopWords.contains(word.toLowerCase())) {
+                if (stopWords.containsIgnoreCase(word)) {
                     continue;
                 }
                 word = chopDownLastCharPunc(word);
@@ -66,7 +66,7 @@ public class parsePrices extends AParser {
                             termToInsert = quantifiedWordForDic(word,isQuantifier);
                             /**Price Quantifier Dollars**/
                             termToInsert += " " + dollars;
-                            parsedTermInsert(termToInsert, currentDoc.getDocNo());
+                            parsedTermInsert(termToInsert, currentDoc.getDocId());
                             wordIndex += 2;
                         }
                         else if(isFraction(isQuantifier) && scndWord.equalsIgnoreCase(dollars.toLowerCase()))
@@ -74,7 +74,7 @@ public class parsePrices extends AParser {
                             /**Price Fraction Dollars**/
                             termToInsert = quantifiedWordForDic(word);
                             termToInsert = " " + isQuantifier + " " + dollars;
-                            parsedTermInsert(termToInsert, currentDoc.getDocNo());
+                            parsedTermInsert(termToInsert, currentDoc.getDocId());
                             wordIndex += 2;
                         }
                         else if(isQuantifier.equalsIgnoreCase(dollars.toLowerCase()))
@@ -82,7 +82,7 @@ public class parsePrices extends AParser {
                             /**Price Dollars**/
                             termToInsert = quantifiedWordForDic(word);
                             termToInsert = " " + dollars;
-                            parsedTermInsert(termToInsert, currentDoc.getDocNo());
+                            parsedTermInsert(termToInsert, currentDoc.getDocId());
                             wordIndex += 1;
                         }
                     }
@@ -95,12 +95,12 @@ public class parsePrices extends AParser {
                         if(nextWordIsQuntifier(quant))
                         {/**$Price Quantifier**/
                             String termToInsert = quantifiedWordForDic(word.substring(1),quant);
-                            parsedTermInsert("$"+ termToInsert,currentDoc.getDocNo());
+                            parsedTermInsert("$"+ termToInsert,currentDoc.getDocId());
                         }
                         else
                         {/**$Price**/
                             String termToInsert = quantifiedWordForDic(word.substring(1));
-                            parsedTermInsert("$"+termToInsert,currentDoc.getDocNo());
+                            parsedTermInsert("$"+termToInsert,currentDoc.getDocId());
                         }
                     }
 
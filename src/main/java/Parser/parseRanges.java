@@ -32,7 +32,7 @@ public class parseRanges extends AParser {
                 continue;
             }
             try {
-                splitedText = document.getDocText().text().split("\\r?\\n");
+                splitedText = document.getText().split("\\r?\\n");
 
                 for (String line : splitedText) {
                     matcher = p.matcher(line);
@@ -43,19 +43,19 @@ public class parseRanges extends AParser {
 
                         String[] values = StringUtils.split(match, '-');
                         if (values[0].matches("^\\d+") && values[1].matches("^\\d+")) {
-                            parsedTermInsert(values[1], document.getDocNo());
-                            parsedTermInsert(match, document.getDocNo());
+                            parsedTermInsert(values[1], document.getDocId());
+                            parsedTermInsert(match, document.getDocId());
 
                         } else {
                             String[] words = StringUtils.split(match, ' ');
                             if (words.length > 3 && words[0].equals("between") && words[2].equals("and")) {
-                                parsedTermInsert(words[1], document.getDocNo());
-                                parsedTermInsert(words[3], document.getDocNo());
+                                parsedTermInsert(words[1], document.getDocId());
+                                parsedTermInsert(words[3], document.getDocId());
 
                             }
                         }
                         System.out.println(match);
-                        parsedTermInsert(match, document.getDocNo());
+                        parsedTermInsert(match, document.getDocId());
                     }
                 }
 
@@ -17,22 +17,22 @@ public class parseWords extends AParser {
             Document document = dequeueDoc();
 
 
-            splitedText = StringUtils.split(document.getDocText().text(),' ');
+            splitedText = StringUtils.split(document.getText(),' ');
 
             for (String word : splitedText) {
                 word = chopDownFisrtChar(word);
                 word = chopDownLastCharPunc(word);
-                if (stopWords.contains(word.toLowerCase()) || NumberUtils.isNumber(word) || word.equals("") ) {
+                if (stopWords.containsIgnoreCase(word) || NumberUtils.isNumber(word) || word.equals("") ) {
                     continue;
                 }
                 else{
                     //System.out.println(word);
-                    parsedTermInsert(word,document.getDocNo());
+                    parsedTermInsert(word,document.getDocId());
                 }
                 /*
                 if(Character.isUpperCase(word.charAt(0))){
                     if(this.termsInText.containsKey(word.toLowerCase())){
-                        parsedTermInsert(word.toLowerCase(),document.getDocNo());
+                        parsedTermInsert(word.toLowerCase(),document.getDocId());
                     }
                 }
                 else if(word.equals(word.toLowerCase())){
@@ -44,24 +44,24 @@ public class parseWords extends AParser {
 
     public void parse(Document document){
 
-        splitedText = document.getDocText().text().split(" ");
+        splitedText = document.getText().split(" ");
         for (String word : splitedText) {
 
             StringBuilder wordB = new StringBuilder(word);
             wordB = chopDownFisrtChar(wordB);
             wordB = chopDownLastCharPunc(wordB);
-            if (stopMWords.contains(wordB.toString().toLowerCase()) || wordB.toString().equals("") ) {
+            if (stopMWords.containsIgnoreCase(wordB) || wordB.toString().equals("") ) {
                 continue;
             }
             //else if (wordB.toString().chars().allMatch(Character::isLetter)){
             else if (bettertWay(wordB.toString())){
                 //System.out.println(word);
-                parsedTermInsert(word,document.getDocNo());
+                parsedTermInsert(word,document.getDocId());
             }
                 /*
                 if(Character.isUpperCase(word.charAt(0))){
                     if(this.termsInText.containsKey(word.toLowerCase())){
-                        parsedTermInsert(word.toLowerCase(),document.getDocNo());
+                        parsedTermInsert(word.toLowerCase(),document.getDocId());
                     }
                 }
                 else if(word.equals(word.toLowerCase())){
@@ -0,0 +1,228 @@
+package Tokenizer;
+
+import java.util.Arrays;
+
+/**
+ * Splits a document text to white space separated tokens in a single pass, without creating a String per token.
+ * Every token is kept as offsets into the text: its raw bounds, its clean bounds (punctuation stripped at both ends)
+ * and its half clean start (punctuation stripped only at the start).
+ * The chars are classified through a lookup table, a String is created only when a token is asked for as a String.
+ * The scanner is reused from document to document, its arrays grow to the longest document.
+ *
+ * The bounds are the same as the ones of the old String path:
+ * StringUtils.split, then chopDownLastCharPunc and chopDownFisrtChar for the clean word,
+ * chopDownFisrtChar of the raw token for the half clean word.
+ * Punctuation is stripped from the start only while at least 2 chars are left.
+ */
+public class TextScanner {
+
+    private static final int TABLE_SIZE = 128;
+    private static final byte WHITESPACE = 1;
+    private static final byte PUNCTUATION = 2;
+    private static final byte[] CHAR_CLASS = new byte[TABLE_SIZE];
+    private static final char[] PUNCTUATIONS = {',','.',';',':','?','(',')','"','{','}','-',']','[','!','\t','\n','|','*'};
+    private static final int INITIAL_CAPACITY = 1024;
+
+    static {
+        for (char c = 0; c < TABLE_SIZE; c++) {
+            if (Character.isWhitespace(c)) {
+                CHAR_CLASS[c] |= WHITESPACE;
+            }
+        }
+        for (char punc :
+                PUNCTUATIONS) {
+            CHAR_CLASS[punc] |= PUNCTUATION;
+        }
+    }
+
+    private String text;
+    private int numOfTokens;
+    private int[] starts;
+    private int[] ends;
+    private int[] cleanStarts;
+    private int[] cleanEnds;
+    private int[] halfCleanStarts;
+    private String[] tokens;
+    private boolean[] replaced;
+
+    public TextScanner() {
+        starts = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+        cleanStarts = new int[INITIAL_CAPACITY];
+        cleanEnds = new int[INITIAL_CAPACITY];
+        halfCleanStarts = new int[INITIAL_CAPACITY];
+        tokens = new String[INITIAL_CAPACITY];
+        replaced = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Scans a new text, the tokens of the last text are dropped
+     * @param text - the text of a document
+     */
+    public void scan(String text) {
+        Arrays.fill(tokens, 0, numOfTokens, null);
+        Arrays.fill(replaced, 0, numOfTokens, false);
+        this.text = text;
+        numOfTokens = 0;
+        int length = text.length();
+        int position = 0;
+        while (position < length) {
+            while (position < length && isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position == length) {
+                break;
+            }
+            int start = position;
+            while (position < length && !isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            addToken(start, position);
+        }
+    }
+
+    private void addToken(int start, int end) {
+        if (numOfTokens == starts.length) {
+            int capacity = starts.length * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            cleanStarts = Arrays.copyOf(cleanStarts, capacity);
+            cleanEnds = Arrays.copyOf(cleanEnds, capacity);
+            halfCleanStarts = Arrays.copyOf(halfCleanStarts, capacity);
+            tokens = Arrays.copyOf(tokens, capacity);
+            replaced = Arrays.copyOf(replaced, capacity);
+        }
+        int cleanEnd = trimEndPunctuation(text, start, end);
+        starts[numOfTokens] = start;
+        ends[numOfTokens] = end;
+        cleanStarts[numOfTokens] = trimStartPunctuation(text, start, cleanEnd);
+        cleanEnds[numOfTokens] = cleanEnd;
+        halfCleanStarts[numOfTokens] = trimStartPunctuation(text, start, end);
+        numOfTokens++;
+    }
+
+    /**
+     * @return the end of the chars between start and end without the punctuation at their end
+     */
+    public static int trimEndPunctuation(CharSequence chars, int start, int end) {
+        while (end > start && isPunctuation(chars.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * @return the start of the chars between start and end without the punctuation at their start,
+     * punctuation is stripped only while at least 2 chars are left
+     */
+    public static int trimStartPunctuation(CharSequence chars, int start, int end) {
+        while (end - start >= 2 && isPunctuation(chars.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    public static boolean isPunctuation(char c) {
+        return c < TABLE_SIZE && (CHAR_CLASS[c] & PUNCTUATION) != 0;
+    }
+
+    private static boolean isWhitespace(char c) {
+        if (c < TABLE_SIZE) {
+            return (CHAR_CLASS[c] & WHITESPACE) != 0;
+        }
+        return Character.isWhitespace(c);
+    }
+
+    /**
+     * @return the number of tokens in the text
+     */
+    public int size() {
+        return numOfTokens;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the raw token, created on the first call for the token
+     */
+    public String token(int index) {
+        String token = tokens[index];
+        if (token == null) {
+            token = text.substring(starts[index], ends[index]);
+            tokens[index] = token;
+        }
+        return token;
+    }
+
+    /**
+     * @return the raw token as it is in the text, even if it was replaced
+     */
+    public String originalToken(int index) {
+        if (replaced[index]) {
+            return text.substring(starts[index], ends[index]);
+        }
+        return token(index);
+    }
+
+    /**
+     * Replaces the raw token, used by parsers that clean a token ahead of the current one.
+     * The clean token stays the same as long as the replacement is the raw token with less punctuation at its end.
+     */
+    public void setToken(int index, String token) {
+        tokens[index] = token;
+        replaced[index] = true;
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    public int cleanStart(int index) {
+        return cleanStarts[index];
+    }
+
+    public int cleanEnd(int index) {
+        return cleanEnds[index];
+    }
+
+    public int cleanLength(int index) {
+        return cleanEnds[index] - cleanStarts[index];
+    }
+
+    /**
+     * @return the token without the punctuation at both of its ends
+     */
+    public String cleanToken(int index) {
+        if (cleanStarts[index] == starts[index] && cleanEnds[index] == ends[index] && !replaced[index]) {
+            return token(index);
+        }
+        return text.substring(cleanStarts[index], cleanEnds[index]);
+    }
+
+    /**
+     * @return the token without the punctuation at its start
+     */
+    public String halfCleanToken(int index) {
+        if (replaced[index]) {
+            String token = tokens[index];
+            return token.substring(trimStartPunctuation(token, 0, token.length()));
+        }
+        if (halfCleanStarts[index] == starts[index]) {
+            return token(index);
+        }
+        return text.substring(halfCleanStarts[index], ends[index]);
+    }
+
+    /**
+     * @return the first char of the clean token
+     */
+    public char cleanFirstChar(int index) {
+        return text.charAt(cleanStarts[index]);
+    }
+}
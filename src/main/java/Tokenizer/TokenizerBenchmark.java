@@ -0,0 +1,137 @@
+package Tokenizer;
+
+import org.apache.commons.lang3.StringUtils;
+import readFile.TrecDocSplitter;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the String tokenizing path MainParse used with the {@link TextScanner} over the texts of a corpus folder.
+ * The String path splits the text with StringUtils.split and strips the punctuation of every token char by char,
+ * once for the clean word and once more for the half clean word.
+ * The scanner path scans the text once and creates only the clean word of the tokens that are not empty.
+ * Prints tokens/sec and bytes allocated per token of each one, the texts are loaded before the measure.
+ * usage: TokenizerBenchmark corpusPath [rounds]
+ */
+public class TokenizerBenchmark {
+
+    private static final char[] punctuations = {',','.',';',':','?','(',')','"','{','}','-',']','[','!','\t','\n','|','*'};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: TokenizerBenchmark corpusPath [rounds]");
+            return;
+        }
+        List<String> texts = new ArrayList<>();
+        loadTexts(new File(args[0]), texts);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round);
+            runStringPath(texts);
+            runScanner(texts);
+        }
+    }
+
+    private static void runStringPath(List<String> texts) {
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long numOfTokens = 0;
+        long checksum = 0;
+        for (String text :
+                texts) {
+            String[] splitedText = StringUtils.split(text);
+            for (String token :
+                    splitedText) {
+                String cleanWord = chopDownFisrtChar(chopDownLastCharPunc(token));
+                String halfCleanWord = chopDownFisrtChar(token);
+                checksum += cleanWord.length() + halfCleanWord.length();
+                numOfTokens++;
+            }
+        }
+        printResult("String", numOfTokens, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore, checksum);
+    }
+
+    private static void runScanner(List<String> texts) {
+        TextScanner scanner = new TextScanner();
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long numOfTokens = 0;
+        long checksum = 0;
+        for (String text :
+                texts) {
+            scanner.scan(text);
+            for (int index = 0; index < scanner.size(); index++) {
+                if (scanner.cleanLength(index) > 0) {
+                    checksum += scanner.cleanToken(index).length();
+                }
+                numOfTokens++;
+            }
+        }
+        printResult("Scanner", numOfTokens, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore, checksum);
+    }
+
+    private static String chopDownLastCharPunc(String word) {
+        if (word != null && word.length() >= 1) {
+            while (word.length() > 0 && isPunctuation(word.charAt(word.length() - 1))) {
+                word = word.substring(0, word.length() - 1);
+            }
+        }
+        return word;
+    }
+
+    private static String chopDownFisrtChar(String word) {
+        if (word != null && word.length() >= 2) {
+            while (word.length() >= 2 && isPunctuation(word.charAt(0))) {
+                word = word.substring(1);
+            }
+        }
+        return word;
+    }
+
+    private static boolean isPunctuation(char c) {
+        for (char punc :
+                punctuations) {
+            if (c == punc) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void printResult(String name, long numOfTokens, long nanos, long allocated, long checksum) {
+        double seconds = nanos / 1000000000.0;
+        System.out.println(String.format("%-8s %d tokens in %.3f Seconds, %.0f tokens/sec, %.1f bytes allocated per token (checksum %d)",
+                name, numOfTokens, seconds, numOfTokens / seconds, numOfTokens == 0 ? 0 : (double) allocated / numOfTokens, checksum));
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, -1 if the JVM can not tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void loadTexts(File folder, List<String> texts) throws Exception {
+        for (File file : folder.listFiles()) {
+            if (file.isDirectory()) {
+                loadTexts(file, texts);
+            }
+            else {
+                TrecDocSplitter splitter = TrecDocSplitter.open(file);
+                IR.Document document;
+                while ((document = splitter.nextDocument()) != null) {
+                    texts.add(document.getText());
+                }
+                splitter.close();
+            }
+        }
+    }
+}
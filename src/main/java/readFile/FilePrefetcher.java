@@ -0,0 +1,196 @@
+package readFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads the next corpus files to memory on a dedicated I/O thread while the current file is split,
+ * so the reader takes a loaded file instead of waiting for the disk.
+ * The files are loaded in the order they will be taken, the loaded files that were not taken yet
+ * are bounded by a read-ahead window in bytes.
+ * A file bigger than the window is not loaded, {@link #take(File)} returns null for it and the reader reads it from the disk.
+ * So do all the files that were not loaded when the I/O thread stopped, whatever stopped it.
+ */
+public class FilePrefetcher implements Runnable {
+
+    private static final byte[] NOT_LOADED = new byte[0];
+
+    private final List<File> files;
+    private final Set<File> filesToLoad;
+    private final long readAheadBytes;
+    private final Map<File, byte[]> loadedFiles;
+    private final ReentrantLock lock;
+    private final Condition fileLoaded;
+    private final Condition windowFree;
+    private long bytesInWindow;
+    private volatile boolean closed;
+    private boolean ioStopped;
+    private Thread ioThread;
+
+    private volatile long readerStalledMillis;
+    private volatile long numOfLoadedFiles;
+    private volatile long numOfLoadedBytes;
+
+    /**
+     * @param files - the corpus files in the order they will be taken
+     * @param readAheadBytes - the maximum bytes of files that were loaded and not taken yet
+     */
+    public FilePrefetcher(List<File> files, long readAheadBytes) {
+        this.files = files;
+        this.filesToLoad = new HashSet<>(files);
+        this.readAheadBytes = readAheadBytes;
+        this.loadedFiles = new HashMap<>();
+        this.lock = new ReentrantLock();
+        this.fileLoaded = lock.newCondition();
+        this.windowFree = lock.newCondition();
+    }
+
+    /**
+     * Starts loading the files on the I/O thread
+     */
+    public void start() {
+        ioThread = new Thread(this, "Corpus Prefetcher");
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (File corpusFile :
+                    files) {
+                if (closed) {
+                    return;
+                }
+                long fileLength = corpusFile.length();
+                if (fileLength > readAheadBytes || fileLength > Integer.MAX_VALUE) {
+                    publish(corpusFile, NOT_LOADED, 0);
+                    continue;
+                }
+                lock.lock();
+                try {
+                    while (bytesInWindow > 0 && bytesInWindow + fileLength > readAheadBytes && !closed) {
+                        windowFree.await();
+                    }
+                    bytesInWindow += fileLength;
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                byte[] fileBytes;
+                try {
+                    fileBytes = Files.readAllBytes(corpusFile.toPath());
+                } catch (IOException e) {
+                    // the reader reads the file itself and reports the error
+                    fileBytes = NOT_LOADED;
+                }
+                publish(corpusFile, fileBytes, fileLength);
+            }
+        } finally {
+            // an error or an interrupt must not leave the reader waiting for files that will never be loaded
+            lock.lock();
+            try {
+                ioStopped = true;
+                fileLoaded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Hands a loaded file to the reader
+     * @param reservedBytes - the bytes the file took from the window before it was read
+     */
+    private void publish(File corpusFile, byte[] fileBytes, long reservedBytes) {
+        lock.lock();
+        try {
+            bytesInWindow += (fileBytes == NOT_LOADED ? 0 : fileBytes.length) - reservedBytes;
+            loadedFiles.put(corpusFile, fileBytes);
+            if (fileBytes != NOT_LOADED) {
+                numOfLoadedFiles++;
+                numOfLoadedBytes += fileBytes.length;
+            }
+            fileLoaded.signalAll();
+            windowFree.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes a file out of the window, waits for the I/O thread if it was not loaded yet
+     * @param corpusFile - the next file to read
+     * @return the bytes of the file or null if the reader should read it from the disk,
+     * as it should for every file that was not loaded once the I/O thread stopped
+     * @throws InterruptedException
+     */
+    public byte[] take(File corpusFile) throws InterruptedException {
+        if (!filesToLoad.contains(corpusFile)) {
+            return null;
+        }
+        lock.lock();
+        try {
+            long waitStart = System.nanoTime();
+            while (!loadedFiles.containsKey(corpusFile) && !ioStopped) {
+                fileLoaded.await();
+            }
+            readerStalledMillis += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - waitStart);
+            byte[] fileBytes = loadedFiles.remove(corpusFile);
+            if (fileBytes == null || fileBytes == NOT_LOADED) {
+                return null;
+            }
+            bytesInWindow -= fileBytes.length;
+            windowFree.signalAll();
+            return fileBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops loading files, the files that were loaded and not taken are dropped
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            loadedFiles.clear();
+            bytesInWindow = 0;
+            windowFree.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getReaderStalledMillis() {
+        return readerStalledMillis;
+    }
+
+    public long getNumOfLoadedFiles() {
+        return numOfLoadedFiles;
+    }
+
+    public long getNumOfLoadedBytes() {
+        return numOfLoadedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "FilePrefetcher{loadedFiles=" + numOfLoadedFiles +
+                ", loadedBytes=" + numOfLoadedBytes +
+                ", readAheadBytes=" + readAheadBytes +
+                ", readerStalledMillis=" + readerStalledMillis + "}";
+    }
+}
@@ -0,0 +1,66 @@
+package readFile;
+
+import Indexer.Indexer;
+import Indexer.ShardMerger;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+
+/**
+ * Indexes a single slice of the corpus into its own folder, so the corpus can be indexed by n processes
+ * on one machine or on several, each with its own {@link Indexer}.
+ * Shard i of n is written to indexPath/shard-i-of-n/postingFiles, the shards are merged by {@link ShardMerger}.
+ * usage: IndexShard corpusPath indexPath shardIndex numOfShards [--resume]
+ */
+public class IndexShard {
+
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.out.println("usage: IndexShard corpusPath indexPath shardIndex numOfShards [--resume]");
+            return;
+        }
+        File corpus = new File(args[0]);
+        int shardIndex = Integer.parseInt(args[2]);
+        int numOfShards = Integer.parseInt(args[3]);
+        boolean resume = args.length > 4 && args[4].equals("--resume");
+
+        File shardFolder = ShardMerger.getShardFolder(new File(args[1]), shardIndex, numOfShards);
+        File postFolder = new File(shardFolder, ShardMerger.POSTING_FOLDER_NAME);
+        File tempFolder = new File(shardFolder, ShardMerger.TEMP_FOLDER_NAME);
+        try {
+            FileUtils.forceMkdir(postFolder);
+            FileUtils.forceMkdir(tempFolder);
+            if (!resume) {
+                FileUtils.cleanDirectory(postFolder);
+                FileUtils.cleanDirectory(tempFolder);
+            }
+        } catch (Exception e) {
+            System.out.println("Could not create the shard Dirs " + shardFolder);
+            return;
+        }
+
+        Indexer myIndexer = Indexer.getInstance();
+        myIndexer.setPathToPostFiles(postFolder.getPath());
+        myIndexer.setPathToTempFolder(tempFolder.getPath());
+        Thread indexerThread = new Thread(myIndexer);
+        indexerThread.setName("Indexer " + shardIndex);
+        indexerThread.start();
+
+        long startTime = System.nanoTime();
+        ReadFile f = new ReadFile();
+        f.setShard(shardIndex, numOfShards);
+        f.setResume(resume);
+        f.readCorpus(corpus);
+        f.stopThreads();
+
+        try {
+            indexerThread.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        myIndexer.createCorpusDictionary();
+
+        System.out.println("Shard " + shardIndex + " of " + numOfShards + ": " + ReadFile.numOfParsedDocs + " documents, "
+                + myIndexer.corpusSize() + " terms, took " + (System.nanoTime() - startTime) / 1000000000 + " Seconds");
+    }
+}
@@ -0,0 +1,205 @@
+package readFile;
+
+import IR.DocFingerprint;
+import IR.Document;
+import org.apache.commons.io.input.CharSequenceReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Reads a corpus file through a memory mapping of it, or through its bytes when they were already loaded.
+ * The <b>DOC</b>, <b>DOCNO</b> and <b>TEXT</b> tags are found by scanning the raw bytes,
+ * every {@link IR.Document} only points at the slices of the mapping that hold its TEXT elements
+ * and the text is decoded to chars only when the parser asks for it.
+ */
+public class MappedCorpusReader {
+
+    private static final byte[] DOC_OPEN = "<doc>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DOC_CLOSE = "</doc>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DOCNO_OPEN = "<docno>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DOCNO_CLOSE = "</docno>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEXT_OPEN = "<text>".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TEXT_CLOSE = "</text>".getBytes(StandardCharsets.US_ASCII);
+
+    private ByteBuffer mappedFile;
+    private int position;
+    private int limit;
+
+    private MappedCorpusReader(ByteBuffer mappedFile) {
+        this.mappedFile = mappedFile;
+        this.position = 0;
+        this.limit = mappedFile.limit();
+    }
+
+    /**
+     * Maps the corpus file to memory, the mapping stays valid after the channel is closed
+     * @param corpusFile - a file of the corpus, must be smaller than 2GB
+     * @return a reader over the mapping
+     * @throws IOException
+     */
+    public static MappedCorpusReader open(File corpusFile) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(corpusFile, "r");
+             FileChannel channel = file.getChannel()) {
+            return new MappedCorpusReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a corpus file whose bytes are already in memory, the documents point into the given buffer
+     * @param fileBytes - all the bytes of a corpus file
+     * @return a reader over the bytes
+     */
+    public static MappedCorpusReader wrap(ByteBuffer fileBytes) {
+        return new MappedCorpusReader(fileBytes);
+    }
+
+    /**
+     * @param corpusFile - a file of the corpus
+     * @return true if the file can be mapped as a single buffer
+     */
+    public static boolean canMap(File corpusFile) {
+        return corpusFile.length() <= Integer.MAX_VALUE;
+    }
+
+    /**
+     * Finds the next <b>DOC</b> in the mapping
+     * @return the next Document or null if there are no more documents
+     */
+    public Document nextDocument() {
+        int docStart = indexOfTag(DOC_OPEN, position, limit);
+        if (docStart < 0) {
+            position = limit;
+            return null;
+        }
+        docStart += DOC_OPEN.length;
+        int docEnd = indexOfTag(DOC_CLOSE, docStart, limit);
+        if (docEnd < 0) {
+            docEnd = limit;
+            position = limit;
+        }
+        else {
+            position = docEnd + DOC_CLOSE.length;
+        }
+
+        String docNo = "";
+        int docNoStart = indexOfTag(DOCNO_OPEN, docStart, docEnd);
+        if (docNoStart >= 0) {
+            docNoStart += DOCNO_OPEN.length;
+            int docNoEnd = indexOfTag(DOCNO_CLOSE, docNoStart, docEnd);
+            docNo = decode(slice(docNoStart, docNoEnd < 0 ? docEnd : docNoEnd)).trim();
+        }
+
+        List<ByteBuffer> textElements = new ArrayList<>();
+        int textLength = 0;
+        int textStart = indexOfTag(TEXT_OPEN, docStart, docEnd);
+        while (textStart >= 0) {
+            int textEnd = indexOfTag(TEXT_CLOSE, textStart + TEXT_OPEN.length, docEnd);
+            textEnd = textEnd < 0 ? docEnd : textEnd + TEXT_CLOSE.length;
+            textElements.add(slice(textStart, textEnd));
+            textLength += textEnd - textStart;
+            textStart = indexOfTag(TEXT_OPEN, textEnd, docEnd);
+        }
+
+        ByteBuffer[] rawText = textElements.toArray(new ByteBuffer[0]);
+        return new Document(docNo, new MappedText(rawText), textLength, DocFingerprint.of(rawText), hasText(rawText));
+    }
+
+    /**
+     * Searches for a tag between from and to, ignoring the case of the letters
+     * @param lowerCaseTag - the tag in lower case
+     * @return the index of the '<' of the tag or -1 if it is not there
+     */
+    private int indexOfTag(byte[] lowerCaseTag, int from, int to) {
+        int lastStart = to - lowerCaseTag.length;
+        for (int i = from; i <= lastStart; i++) {
+            if (mappedFile.get(i) != '<') {
+                continue;
+            }
+            int j = 1;
+            while (j < lowerCaseTag.length && toLowerCase(mappedFile.get(i + j)) == lowerCaseTag[j]) {
+                j++;
+            }
+            if (j == lowerCaseTag.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param rawText - raw TEXT elements
+     * @return true if there is a char that is not a white space out of the tags of the elements
+     */
+    private static boolean hasText(ByteBuffer[] rawText) {
+        for (ByteBuffer textElement :
+                rawText) {
+            boolean inTag = false;
+            for (int i = textElement.position(); i < textElement.limit(); i++) {
+                byte b = textElement.get(i);
+                if (inTag) {
+                    inTag = b != '>';
+                }
+                else if (b == '<') {
+                    inTag = true;
+                }
+                else if (!Character.isWhitespace(b)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte toLowerCase(byte b) {
+        if (b >= 'A' && b <= 'Z') {
+            return (byte) (b + ('a' - 'A'));
+        }
+        return b;
+    }
+
+    private ByteBuffer slice(int from, int to) {
+        ByteBuffer view = mappedFile.duplicate();
+        view.position(from);
+        view.limit(to);
+        return view.slice();
+    }
+
+    private static String decode(ByteBuffer bytes) {
+        return StandardCharsets.UTF_8.decode(bytes.duplicate()).toString();
+    }
+
+    /**
+     * The TEXT elements of a single document as slices of the mapping,
+     * decoded and cleaned the same way as the streaming splitter does only when asked for
+     */
+    private static class MappedText implements Supplier<String> {
+        private ByteBuffer[] textElements;
+
+        MappedText(ByteBuffer[] textElements) {
+            this.textElements = textElements;
+        }
+
+        @Override
+        public String get() {
+            StringBuilder rawText = new StringBuilder();
+            for (ByteBuffer textElement :
+                    textElements) {
+                rawText.append(StandardCharsets.UTF_8.decode(textElement.duplicate()));
+            }
+            try {
+                return TrecDocSplitter.readText(new CharSequenceReader(rawText));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return "";
+            }
+        }
+    }
+}
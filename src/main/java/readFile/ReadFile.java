@@ -2,24 +2,51 @@ package readFile;
 
 import Parser.AParser;
 import Parser.MainParse;
+import Parser.NearDuplicateFilter;
+import Parser.ParseRuleRegistry;
+import Parser.StemCache;
+import Parser.TermPool;
 import Tokenizer.Tokenizer;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import Indexer.Indexer;
+import Indexer.IngestManifest;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class ReadFile {
 
-    private int numOfParsers = 0;
-    private static final int DOC_CREATED_IN_QS = 2000;
-    public static int numOfCorpusFiles = 0, numOfParsedDocs = 0;
+    public static final int DEFAULT_NUM_OF_PARSERS = 4;
+    private int numOfParsers;
+    public static AtomicInteger numOfCorpusFiles = new AtomicInteger(0), numOfParsedDocs = new AtomicInteger(0);
     public int testSleepOn4Files = 0;
+    private CorpusSplitter corpusSplitter = CorpusSplitter.STREAMING;
+    private boolean parallelReading = false;
+    private boolean resume = false;
+    private int checkpointInterval = 100;
+    private int shardIndex = 0;
+    private int numOfShards = 1;
+    private long readAheadBytes = 64L * 1024 * 1024;
+    private boolean stemming = false;
+    private boolean dualIndexing = false;
+    private IngestManifest manifest;
+    private List<String> filesSinceCheckpoint = Collections.synchronizedList(new ArrayList<>());
+    private ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
     private Tokenizer theTokenizer = Tokenizer.getInstance();
 //    public Thread prsNumThrd ;
 //    public Thread prsDatesThrd ;
@@ -35,21 +62,24 @@ public class ReadFile {
 //    public parseRanges prsRanges = new parseRanges();
 //    public parseWords prsWords = new parseWords();
 //    public parseOther prsOther = new parseOther();
-    public MainParse mainParse1 = new MainParse();
-    public MainParse mainParse2 = new MainParse();
-    public MainParse mainParse3 = new MainParse();
-    public MainParse mainParse4 = new MainParse();
-    public MainParse mainParse5 = new MainParse();
 //    private Indexer myIndexer = Indexer.getInstance();
 //    private final int numberOfDocsToPost = 1000;
 
     public ReadFile() {
+        this(DEFAULT_NUM_OF_PARSERS);
+    }
+
+    /**
+     * Starts the parser threads, every parser keeps its own terms and hands them to the Indexer by itself
+     * @param numOfParsers - the number of parser threads
+     */
+    public ReadFile(int numOfParsers) {
+        this.numOfParsers = Math.max(1, numOfParsers);
         allParserThreads = new ArrayList<>();
         allParsers = new ArrayList<>();
-        addParserToThreads(mainParse1);
-        addParserToThreads(mainParse2);
-        addParserToThreads(mainParse3);
-        addParserToThreads(mainParse4);
+        for (int i = 0; i < this.numOfParsers; i++) {
+            addParserToThreads(new MainParse());
+        }
         //addParserToThreads(prsNums);
         //addParserToThreads(prsDates);
         //addParserToThreads(prsPrcntg);
@@ -58,13 +88,14 @@ public class ReadFile {
 //         addParserToThreads(prsRanges);
         //addParserToThreads(prsWords);
         //addParserToThreads(prsOther);
+        AParser.getDocQueue().registerMBean();
         runParsers();
 
     }
 
     private void addParserToThreads(AParser prsr) {
         allParsers.add(prsr);
-        allParserThreads.add(new Thread(prsr));
+        allParserThreads.add(new Thread(prsr, "Main Parser " + allParserThreads.size()));
     }
 
     public void runParsers() {
@@ -78,16 +109,13 @@ public class ReadFile {
 
     public void stopThreads()
     {
-        while(!allPrsrQsEmpty())
+        try
         {
-            try
-            {
-                Thread.sleep(5000);
-            }
-            catch (Exception e)
-            {
-                e.printStackTrace();
-            }
+            AParser.getDocQueue().awaitEmpty();
+        }
+        catch (InterruptedException e)
+        {
+            e.printStackTrace();
         }
         for (AParser prsr :
                 allParsers) {
@@ -105,111 +133,477 @@ public class ReadFile {
         {
             e.printStackTrace();
         }
-        while(!Indexer.getInstance().isQEmpty())
+        while(!Indexer.getInstance().isQEmpty() || (dualIndexing && !Indexer.getStemmedInstance().isQEmpty()))
         {
 
         }
         Indexer.stopThreads = true;
+        System.out.println(AParser.getDocQueue());
+        System.out.println(AParser.getExactDuplicateFilter());
+        if (AParser.getNearDuplicateFilter() != null) {
+            System.out.println(AParser.getNearDuplicateFilter().report());
+        }
+        if (stemming || dualIndexing) {
+            System.out.println(StemCache.getInstance());
+        }
+        System.out.println(TermPool.getInstance());
+        System.out.println(ParseRuleRegistry.report());
 
     }
 
-    private boolean allPrsrQsEmpty() {
+    public void releaseAllParsedTermsToIndex()
+    {
         for (AParser prsr :
                 allParsers) {
-            if (!prsr.isQEmpty())
-            {
-                return false;
-            }
+            prsr.stopThread();
         }
-        return true;
     }
 
-    public void releaseAllParsedTermsToIndex()
-    {
-        mainParse1.stopThread();
+    /**
+     * The ways a corpus file can be split into documents
+     * JSOUP - builds a Jsoup DOM of the whole file
+     * STREAMING - {@link TrecDocSplitter}, scans the file chars without a DOM
+     * MAPPED - {@link MappedCorpusReader}, maps the file and decodes the text only when the parser needs it
+     */
+    public enum CorpusSplitter {
+        JSOUP, STREAMING, MAPPED
     }
 
-    public void readCorpus(File corpus){
-        Document doc;
-
-        for (File folder : corpus.listFiles()){
-            if(folder.isDirectory()){
-                readCorpus(folder);
-            }
-            else{
-                try {
-                    doc = Jsoup.parse(folder,"UTF8");
-//                    String body = doc.body().text();
-                    //for (Element sentence : doc.getElementsByTag("DOCNO"))
-                    //   System.out.print(sentence);
-                    // System.out.println(doc.getElementsByTag("DOCNO").text());
-                    Elements docs = doc.getElementsByTag("doc");
-                    for (Element fileDoc :
-                            docs) {
-                        numOfCorpusFiles++;
-                        numOfParsedDocs++;
-                        testSleepOn4Files++;
-                        IR.Document document = new IR.Document(fileDoc);
-                        enqDocToAllParsers(document);
-//                        shouldWaitForParser();
-//                        System.out.println("Starting parse " + document.getDocNo());
-//                        mainParse1.enqueueDoc(document);
-//                        mainParse1.parse();
-//                        System.out.println("Finished parse " + document.getDocNo());
-                        //prsPrcntg.parse();
-
-//                        new Thread(()-> prsNums.parse(document)).start();
-//                        if(numOfParsedDocs > numberOfDocsToPost)
-//                        {
-//                            myIndexer.enqueue(prsNums.getCopyOfTermInText());
-//                            prsNums.clearDic();
-//                            numOfParsedDocs = 0;
-//                        }
-//                        parseDates pDate = new parseDates();
-//                        pDate.parse(document);
-                        //parsePercentage pp = new parsePercentage();
-                        //pp.parse(document);
-                        //prsNums.parse(document);
-                    }
+    /**
+     * Chooses how the corpus files are split into documents
+     * @param corpusSplitter - the splitter to use for every corpus file
+     */
+    public void setCorpusSplitter(CorpusSplitter corpusSplitter) {
+        this.corpusSplitter = corpusSplitter;
+    }
 
+    /**
+     * Chooses whether the corpus tree is read by a single thread or by a work stealing pool
+     * @param parallelReading - true to read and split the corpus files on a {@link ForkJoinPool} sized to the machine
+     */
+    public void setParallelReading(boolean parallelReading) {
+        this.parallelReading = parallelReading;
+    }
 
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
-            }
+    /**
+     * Chooses whether the reading continues an indexing that stopped before it was done.
+     * The corpus files the manifest of the temp folder marks as ingested are skipped
+     * and the temp runs of its last checkpoint are kept, the Indexer thread must run.
+     * @param resume - true to continue from the last checkpoint, false to start a new manifest
+     */
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Sets how often the reading stops to record a checkpoint in the manifest
+     * @param checkpointInterval - the number of corpus files between checkpoints, 0 to never record one
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Reads only a slice of the corpus so n processes can each index another slice,
+     * the corpus files are ordered by their path under the corpus folder and file k belongs to shard k mod n
+     * @param shardIndex - the slice to read, 0 to numOfShards-1
+     * @param numOfShards - the number of slices
+     */
+    public void setShard(int shardIndex, int numOfShards) {
+        if (numOfShards < 1 || shardIndex < 0 || shardIndex >= numOfShards) {
+            throw new IllegalArgumentException("shard " + shardIndex + " of " + numOfShards);
         }
+        this.shardIndex = shardIndex;
+        this.numOfShards = numOfShards;
+    }
 
+    /**
+     * Sets the read-ahead window of the single threaded reading,
+     * the next corpus files are loaded by an I/O thread while the current one is split
+     * @param readAheadBytes - the maximum bytes of loaded files waiting to be split, 0 to read every file when its turn comes
+     */
+    public void setReadAheadBytes(long readAheadBytes) {
+        this.readAheadBytes = readAheadBytes;
     }
 
-    public void runParse()
-    {
-        mainParse1.parse();
+    /**
+     * Chooses whether near duplicate documents are collapsed into the first one instead of being indexed
+     * @param threshold - the estimated similarity from which a document is a near duplicate, 0 to index them all
+     */
+    public void setNearDuplicateThreshold(double threshold) {
+        AParser.setNearDuplicateFilter(threshold > 0 ? new NearDuplicateFilter(threshold) : null);
     }
 
-    private void enqDocToAllParsers(IR.Document document) {
+    /**
+     * Chooses whether the parsers index the words by their stem
+     * @param stemming - true to build a stemmed index, its posting files belong in {@link Indexer#getPostingFolder(String, boolean)}
+     */
+    public void setStemming(boolean stemming) {
+        this.stemming = stemming;
         for (AParser prsr :
                 allParsers) {
-            prsr.enqueueDoc(document);
+            prsr.setStemming(stemming);
         }
     }
 
-    private void shouldWaitForParser() {
-        if(mainParse1.qSize() >= DOC_CREATED_IN_QS)
-        {
-            try
-            {
-                Thread.sleep(1000);
+    /**
+     * Chooses whether a stemmed and an unstemmed index are built in the same pass,
+     * every token is read, split and parsed once and fed to {@link Indexer#getInstance()} as it is
+     * and to {@link Indexer#getStemmedInstance()} stemmed, the threads of both Indexers must run
+     * @param dualIndexing - true to build both indices
+     */
+    public void setDualIndexing(boolean dualIndexing) {
+        this.dualIndexing = dualIndexing;
+        for (AParser prsr :
+                allParsers) {
+            prsr.setDualIndexing(dualIndexing);
+        }
+    }
+
+    public void readCorpus(File corpus){
+        openManifest();
+        if (numOfShards > 1) {
+            readShard(corpus);
+        }
+        else if (parallelReading) {
+            readCorpusParallel(corpus);
+        }
+        else {
+            List<File> corpusFiles = new ArrayList<>();
+            listCorpusFiles(corpus, corpusFiles);
+            readFiles(corpusFiles);
+        }
+        if (manifest != null && !filesSinceCheckpoint.isEmpty()) {
+            checkpoint(1);
+        }
+    }
+
+    /**
+     * Loads the manifest of the temp folder when resuming or starts a new one
+     */
+    private void openManifest() {
+        Indexer indexer = Indexer.getInstance();
+        if (!resume) {
+            // a new build never merges the temp runs of a build that died
+            try {
+                new IngestManifest(indexer.getPathToTempFolder()).reset();
+                if (dualIndexing) {
+                    new IngestManifest(Indexer.getStemmedInstance().getPathToTempFolder()).reset();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (checkpointInterval <= 0 && !resume) {
+            manifest = null;
+            return;
+        }
+        manifest = new IngestManifest(indexer.getPathToTempFolder());
+        manifest.addState(AParser.getExactDuplicateFilter());
+        if (AParser.getNearDuplicateFilter() != null) {
+            manifest.addState(AParser.getNearDuplicateFilter());
+        }
+        if (dualIndexing) {
+            // the manifest records the runs of the unstemmed Indexer, the stemmed one saves its own
+            manifest.addState(Indexer.getStemmedInstance());
+        }
+        try {
+            if (resume) {
+                manifest.load();
+                manifest.restore();
+                indexer.resumeFromRun(manifest.getNumOfRuns());
+                System.out.println("Resuming after " + manifest.getNumOfIngestedFiles() + " files and " + manifest.getNumOfRuns() + " temp runs");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            manifest = null;
+        }
+    }
+
+    /**
+     * Records a checkpoint once enough files were read since the last one.
+     * The readers are held out, every Document that was enqueued is parsed, handed to the Indexer and written to a temp run,
+     * only then the files are written to the manifest.
+     * @param minFiles - the number of files since the last checkpoint that is worth a checkpoint
+     */
+    private void checkpoint(int minFiles) {
+        checkpointLock.writeLock().lock();
+        try {
+            if (filesSinceCheckpoint.size() < minFiles) {
+                return;
+            }
+            AParser.getDocQueue().awaitEmpty();
+            AParser.requestRelease(numOfParsers).await();
+            int numOfRuns = Indexer.getInstance().flush();
+            if (dualIndexing) {
+                Indexer.getStemmedInstance().flush();
             }
-            catch (Exception e)
-            {
+            manifest.checkpoint(filesSinceCheckpoint, numOfRuns);
+            filesSinceCheckpoint.clear();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the corpus files one after the other,
+     * the files ahead are loaded by a {@link FilePrefetcher} while the current one is split
+     * @param corpusFiles - the files to read in the order to read them
+     */
+    private void readFiles(List<File> corpusFiles) {
+        List<File> filesToRead = new ArrayList<>();
+        for (File corpusFile :
+                corpusFiles) {
+            if (manifest == null || !manifest.isIngested(corpusFile)) {
+                filesToRead.add(corpusFile);
+            }
+        }
+        if (readAheadBytes <= 0) {
+            for (File corpusFile :
+                    filesToRead) {
+                readCorpusFile(corpusFile, null);
+            }
+            return;
+        }
 
+        FilePrefetcher prefetcher = new FilePrefetcher(filesToRead, readAheadBytes);
+        prefetcher.start();
+        try {
+            for (File corpusFile :
+                    filesToRead) {
+                readCorpusFile(corpusFile, prefetcher.take(corpusFile));
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            prefetcher.close();
+            System.out.println(prefetcher);
         }
     }
 
+    /**
+     * Walks the corpus tree on a ForkJoinPool, every folder and every file is a task
+     * so idle readers steal files from the busy ones.
+     * All the documents are enqueued to the same parsers queue as in the single threaded reading.
+     * @param corpus - the corpus folder
+     */
+    public void readCorpusParallel(File corpus) {
+        ForkJoinPool readersPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            readersPool.invoke(new ReadFolderTask(corpus));
+        }
+        finally {
+            readersPool.shutdown();
+        }
+    }
+
+    /**
+     * Reads the files of the corpus that belong to this shard
+     * @param corpus - the corpus folder
+     */
+    private void readShard(File corpus) {
+        List<File> allCorpusFiles = new ArrayList<>();
+        listCorpusFiles(corpus, allCorpusFiles);
+        Path corpusPath = corpus.toPath();
+        allCorpusFiles.sort(Comparator.comparing(corpusFile -> corpusPath.relativize(corpusFile.toPath()).toString()));
+        List<File> shardFiles = new ArrayList<>();
+        for (int fileIndex = shardIndex; fileIndex < allCorpusFiles.size(); fileIndex += numOfShards) {
+            shardFiles.add(allCorpusFiles.get(fileIndex));
+        }
+        System.out.println("Shard " + shardIndex + " of " + numOfShards + " reads " + shardFiles.size() + " of " + allCorpusFiles.size() + " files");
+
+        if (parallelReading) {
+            List<ReadFileTask> fileTasks = new ArrayList<>();
+            for (File corpusFile :
+                    shardFiles) {
+                fileTasks.add(new ReadFileTask(corpusFile));
+            }
+            ForkJoinPool readersPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+            try {
+                readersPool.invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(fileTasks);
+                    }
+                });
+            }
+            finally {
+                readersPool.shutdown();
+            }
+        }
+        else {
+            readFiles(shardFiles);
+        }
+    }
+
+    private void listCorpusFiles(File folder, List<File> corpusFiles) {
+        File[] filesInFolder = folder.listFiles();
+        if (filesInFolder == null) {
+            return;
+        }
+        for (File file :
+                filesInFolder) {
+            if (file.isDirectory()) {
+                listCorpusFiles(file, corpusFiles);
+            }
+            else {
+                corpusFiles.add(file);
+            }
+        }
+    }
+
+    private void readCorpusFile(File corpusFile) {
+        readCorpusFile(corpusFile, null);
+    }
+
+    /**
+     * Splits a corpus file to documents and enqueues them
+     * @param corpusFile - a file of the corpus
+     * @param fileBytes - the bytes of the file if they were already loaded, null to read the file from the disk
+     */
+    private void readCorpusFile(File corpusFile, byte[] fileBytes) {
+        if (manifest != null && manifest.isIngested(corpusFile)) {
+            return;
+        }
+        checkpointLock.readLock().lock();
+        try {
+            if (corpusSplitter == CorpusSplitter.MAPPED && (fileBytes != null || MappedCorpusReader.canMap(corpusFile))) {
+                readFileMapped(corpusFile, fileBytes);
+            }
+            else if (corpusSplitter == CorpusSplitter.JSOUP) {
+                readFileWithJsoup(corpusFile, fileBytes);
+            }
+            else {
+                readFileStreaming(corpusFile, fileBytes);
+            }
+            // a file that failed is left out of the manifest so a resume reads it again
+            filesSinceCheckpoint.add(corpusFile.getAbsolutePath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+        if (manifest != null && checkpointInterval > 0 && filesSinceCheckpoint.size() >= checkpointInterval) {
+            checkpoint(checkpointInterval);
+        }
+    }
+
+    /**
+     * Splits the corpus file to documents by building a Jsoup DOM of the whole file
+     * @param corpusFile - a file of the corpus
+     * @param fileBytes - the loaded bytes of the file or null
+     * @throws IOException
+     */
+    private void readFileWithJsoup(File corpusFile, byte[] fileBytes) throws IOException {
+        Document doc = fileBytes != null ?
+                Jsoup.parse(new ByteArrayInputStream(fileBytes), "UTF8", corpusFile.getAbsolutePath()) :
+                Jsoup.parse(corpusFile,"UTF8");
+        Elements docs = doc.getElementsByTag("doc");
+        for (Element fileDoc :
+                docs) {
+            handleDocument(new IR.Document(fileDoc));
+        }
+    }
+
+    /**
+     * Splits the corpus file to documents while reading it, without building a DOM
+     * @param corpusFile - a file of the corpus
+     * @param fileBytes - the loaded bytes of the file or null
+     * @throws IOException
+     */
+    private void readFileStreaming(File corpusFile, byte[] fileBytes) throws IOException {
+        TrecDocSplitter splitter = fileBytes != null ? TrecDocSplitter.open(fileBytes) : TrecDocSplitter.open(corpusFile);
+        try {
+            IR.Document document;
+            while ((document = splitter.nextDocument()) != null) {
+                handleDocument(document);
+            }
+        }
+        finally {
+            splitter.close();
+        }
+    }
+
+    /**
+     * Splits the corpus file to documents by scanning a memory mapping of it
+     * @param corpusFile - a file of the corpus
+     * @param fileBytes - the loaded bytes of the file or null to map the file
+     * @throws IOException
+     */
+    private void readFileMapped(File corpusFile, byte[] fileBytes) throws IOException {
+        MappedCorpusReader reader = fileBytes != null ? MappedCorpusReader.wrap(ByteBuffer.wrap(fileBytes)) : MappedCorpusReader.open(corpusFile);
+        IR.Document document;
+        while ((document = reader.nextDocument()) != null) {
+            handleDocument(document);
+        }
+    }
+
+    private void handleDocument(IR.Document document) {
+        numOfCorpusFiles.incrementAndGet();
+        numOfParsedDocs.incrementAndGet();
+        testSleepOn4Files++;
+        AParser.enqueueDoc(document);
+    }
+
+    public void runParse()
+    {
+        allParsers.get(0).parse();
+    }
+
     public void reset() {
-        numOfParsedDocs = 0;
-        numOfCorpusFiles = 0;
-        mainParse1 = new MainParse();
+        numOfParsedDocs.set(0);
+        numOfCorpusFiles.set(0);
+    }
+
+    /**
+     * Reads a folder of the corpus, forks a task for each sub folder and each file in it
+     */
+    private class ReadFolderTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private File folder;
+
+        ReadFolderTask(File folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        protected void compute() {
+            File[] filesInFolder = folder.listFiles();
+            if (filesInFolder == null) {
+                return;
+            }
+            List<RecursiveAction> subTasks = new ArrayList<>();
+            for (File file :
+                    filesInFolder) {
+                if (file.isDirectory()) {
+                    subTasks.add(new ReadFolderTask(file));
+                }
+                else {
+                    subTasks.add(new ReadFileTask(file));
+                }
+            }
+            invokeAll(subTasks);
+        }
+    }
+
+    /**
+     * Reads and splits a single corpus file
+     */
+    private class ReadFileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private File corpusFile;
+
+        ReadFileTask(File corpusFile) {
+            this.corpusFile = corpusFile;
+        }
+
+        @Override
+        protected void compute() {
+            readCorpusFile(corpusFile);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package readFile;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the Jsoup splitter, the streaming {@link TrecDocSplitter} and the {@link MappedCorpusReader} over a corpus folder.
+ * Prints docs/sec and bytes allocated per document of each one, the documents are not parsed.
+ * The mapped reader is measured twice, once without decoding the text and once decoding it as the parser would.
+ * usage: SplitterBenchmark corpusPath [rounds]
+ */
+public class SplitterBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("usage: SplitterBenchmark corpusPath [rounds]");
+            return;
+        }
+        List<File> corpusFiles = new ArrayList<>();
+        listFiles(new File(args[0]), corpusFiles);
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        for (int round = 1; round <= rounds; round++) {
+            System.out.println("Round " + round);
+            runJsoup(corpusFiles);
+            runStreaming(corpusFiles);
+            runMapped(corpusFiles, false);
+            runMapped(corpusFiles, true);
+        }
+    }
+
+    private static void runJsoup(List<File> corpusFiles) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long numOfDocs = 0;
+        for (File corpusFile :
+                corpusFiles) {
+            Elements docs = Jsoup.parse(corpusFile, "UTF8").getElementsByTag("doc");
+            for (Element fileDoc :
+                    docs) {
+                new IR.Document(fileDoc);
+                numOfDocs++;
+            }
+        }
+        printResult("Jsoup", numOfDocs, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore);
+    }
+
+    private static void runStreaming(List<File> corpusFiles) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long numOfDocs = 0;
+        for (File corpusFile :
+                corpusFiles) {
+            TrecDocSplitter splitter = TrecDocSplitter.open(corpusFile);
+            while (splitter.nextDocument() != null) {
+                numOfDocs++;
+            }
+            splitter.close();
+        }
+        printResult("Streaming", numOfDocs, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore);
+    }
+
+    private static void runMapped(List<File> corpusFiles, boolean decodeText) throws Exception {
+        long allocatedBefore = allocatedBytes();
+        long startTime = System.nanoTime();
+        long numOfDocs = 0;
+        for (File corpusFile :
+                corpusFiles) {
+            MappedCorpusReader reader = MappedCorpusReader.open(corpusFile);
+            IR.Document document;
+            while ((document = reader.nextDocument()) != null) {
+                if (decodeText) {
+                    document.getTextArray();
+                }
+                numOfDocs++;
+            }
+        }
+        printResult(decodeText ? "Mapped+txt" : "Mapped", numOfDocs, System.nanoTime() - startTime, allocatedBytes() - allocatedBefore);
+    }
+
+    private static void printResult(String name, long numOfDocs, long nanos, long allocated) {
+        double seconds = nanos / 1000000000.0;
+        System.out.println(String.format("%-10s %d docs in %.2f Seconds, %.0f docs/sec, %d bytes allocated per doc",
+                name, numOfDocs, seconds, numOfDocs / seconds, numOfDocs == 0 ? 0 : allocated / numOfDocs));
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, -1 if the JVM can not tell
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private static void listFiles(File folder, List<File> corpusFiles) {
+        for (File file : folder.listFiles()) {
+            if (file.isDirectory()) {
+                listFiles(file, corpusFiles);
+            }
+            else {
+                corpusFiles.add(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package readFile;
+
+import IR.Document;
+import org.jsoup.nodes.Entities;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming splitter for TREC corpus files.
+ * Instead of building a Jsoup DOM for the whole file it scans the characters once,
+ * looking only for the <b>DOC</b>, <b>DOCNO</b> and <b>TEXT</b> tags, and hands out one
+ * {@link IR.Document} at a time.
+ * Only the text of the current document is held in memory.
+ *
+ * The text is built the same way Jsoup's <i>Elements.text()</i> builds it:
+ * inner tags are dropped, entities are decoded and whitespace is collapsed to single spaces.
+ * Named entities are decoded by the entities table of Jsoup,
+ * numeric entities are decoded as Jsoup decodes them: decimal or hex (&amp;#x), 0x80 to 0x9f as windows-1252,
+ * code points that are not valid as U+FFFD. A no-break space is a whitespace, as in Elements.text().
+ */
+public class TrecDocSplitter {
+
+    private static final int MAX_TAG_LENGTH = 64;
+    // the longest name in the entities table of Jsoup is 31 chars
+    private static final int MAX_ENTITY_LENGTH = 32;
+    private static final int EOF = -1;
+    private static final int UNKNOWN_ENTITY = -1;
+    private static final char NBSP = '\u00a0';
+    private static final int REPLACEMENT_CHAR = 0xFFFD;
+    private static final int WIN1252_EXTENSIONS_START = 0x80;
+    // the chars Jsoup decodes the numeric entities 0x80 to 0x9f to, as the windows-1252 encoding has them
+    private static final int[] WIN1252_EXTENSIONS = {
+            0x20AC, 0x0081, 0x201A, 0x0192, 0x201E, 0x2026, 0x2020, 0x2021,
+            0x02C6, 0x2030, 0x0160, 0x2039, 0x0152, 0x008D, 0x017D, 0x008F,
+            0x0090, 0x2018, 0x2019, 0x201C, 0x201D, 0x2022, 0x2013, 0x2014,
+            0x02DC, 0x2122, 0x0161, 0x203A, 0x0153, 0x009D, 0x017E, 0x0178
+    };
+
+    private Reader reader;
+    private StringBuilder docNo;
+    private StringBuilder docText;
+    private StringBuilder tagName;
+    private StringBuilder rawTag;
+    private boolean inDoc, inDocNo, inText;
+    private int pushedBack = EOF;
+
+    public TrecDocSplitter(Reader reader) {
+        this.reader = reader;
+        docNo = new StringBuilder();
+        docText = new StringBuilder();
+        tagName = new StringBuilder();
+        rawTag = new StringBuilder();
+    }
+
+    /**
+     * Opens a corpus file for splitting, the file is read as UTF-8
+     * @param corpusFile - a file of the corpus
+     * @return a splitter over the file
+     * @throws IOException
+     */
+    public static TrecDocSplitter open(File corpusFile) throws IOException {
+        return new TrecDocSplitter(new BufferedReader(new InputStreamReader(new FileInputStream(corpusFile), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Splits a corpus file that was already loaded to memory, the bytes are read as UTF-8
+     * @param fileBytes - all the bytes of a corpus file
+     * @return a splitter over the bytes
+     */
+    public static TrecDocSplitter open(byte[] fileBytes) {
+        return new TrecDocSplitter(new BufferedReader(new InputStreamReader(new ByteArrayInputStream(fileBytes), StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Reads the next <b>DOC</b> out of the stream
+     * @return the next Document or null if there are no more documents
+     * @throws IOException
+     */
+    public Document nextDocument() throws IOException {
+        int c;
+        while ((c = read()) != EOF) {
+            if (c == '<') {
+                readTag();
+                if (!inDoc && docNo.length() + docText.length() > 0) {
+                    // </DOC> was found
+                    Document document = new Document(docNo.toString().trim(), trimEnd(docText));
+                    docNo.setLength(0);
+                    docText.setLength(0);
+                    return document;
+                }
+            }
+            else if (c == '&' && (inDocNo || inText)) {
+                appendEntity();
+            }
+            else {
+                appendChar((char) c);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Builds the text of TEXT elements the same way {@link #nextDocument()} does,
+     * used to decode raw TEXT elements that were cut out of a corpus file
+     * @param rawText - one or more raw <b>TEXT</b> elements including their tags
+     * @return the text of the elements
+     * @throws IOException
+     */
+    public static String readText(Reader rawText) throws IOException {
+        TrecDocSplitter splitter = new TrecDocSplitter(rawText);
+        splitter.inDoc = true;
+        splitter.nextDocument();
+        return splitter.trimEnd(splitter.docText);
+    }
+
+    public void close() {
+        try {
+            reader.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Reads the tag after a '<' and updates the state of the splitter.
+     * If it is not a tag at all the chars are kept as text.
+     */
+    private void readTag() throws IOException {
+        tagName.setLength(0);
+        rawTag.setLength(0);
+        int c = read();
+        if (c != '/' && !Character.isLetter(c)) {
+            appendChar('<');
+            unread(c);
+            return;
+        }
+        boolean closing = c == '/';
+        rawTag.append((char) c);
+        if (!closing) {
+            tagName.append(Character.toLowerCase((char) c));
+        }
+        boolean inName = true;
+        int length = 1;
+        while ((c = read()) != EOF && c != '>') {
+            if (++length > MAX_TAG_LENGTH) {
+                //Not a tag, keep it as is
+                appendChar('<');
+                appendString(rawTag);
+                unread(c);
+                return;
+            }
+            rawTag.append((char) c);
+            if (inName && (Character.isWhitespace(c) || c == '/')) {
+                inName = false;
+            }
+            else if (inName) {
+                tagName.append(Character.toLowerCase((char) c));
+            }
+        }
+        onTag(tagName, closing);
+    }
+
+    private void onTag(StringBuilder name, boolean closing) {
+        if (isTag(name, "doc")) {
+            inDoc = !closing;
+            inDocNo = false;
+            inText = false;
+            if (!closing) {
+                docNo.setLength(0);
+                docText.setLength(0);
+            }
+        }
+        else if (inDoc && isTag(name, "docno")) {
+            inDocNo = !closing;
+        }
+        else if (inDoc && isTag(name, "text")) {
+            if (!closing && docText.length() > 0 && docText.charAt(docText.length() - 1) != ' ') {
+                // every TEXT element is separated by a space as in Elements.text()
+                docText.append(' ');
+            }
+            inText = !closing;
+        }
+    }
+
+    private boolean isTag(StringBuilder name, String tag) {
+        if (name.length() != tag.length()) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (name.charAt(i) != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the entity after a '&amp;' into the current text, unknown entities are kept as they are
+     */
+    private void appendEntity() throws IOException {
+        StringBuilder entity = new StringBuilder();
+        int c;
+        while ((c = read()) != EOF && c != ';' && entity.length() < MAX_ENTITY_LENGTH && (Character.isLetterOrDigit(c) || c == '#')) {
+            entity.append((char) c);
+        }
+        if (c == ';') {
+            String decoded = decodeEntity(entity.toString());
+            if (decoded != null) {
+                appendString(decoded);
+                return;
+            }
+        }
+        appendChar('&');
+        appendString(entity);
+        if (c == ';') {
+            appendChar(';');
+        }
+        else {
+            unread(c);
+        }
+    }
+
+    /**
+     * Named entities are looked up in the entities table of Jsoup
+     * @return the chars of the entity or null if it is not known
+     */
+    private String decodeEntity(String name) {
+        if (name.length() > 1 && name.charAt(0) == '#') {
+            int codePoint = decodeNumericEntity(name);
+            return codePoint == UNKNOWN_ENTITY ? null : new String(Character.toChars(codePoint));
+        }
+        String decoded = Entities.getByName(name);
+        return decoded.isEmpty() ? null : decoded;
+    }
+
+    /**
+     * @param name - #digits or #xhexdigits
+     * @return the code point of the entity or UNKNOWN_ENTITY if it is not a number
+     */
+    private static int decodeNumericEntity(String name) {
+        boolean isHex = name.charAt(1) == 'x' || name.charAt(1) == 'X';
+        int radix = isHex ? 16 : 10;
+        int start = isHex ? 2 : 1;
+        if (start == name.length()) {
+            return UNKNOWN_ENTITY;
+        }
+        long codePoint = 0;
+        for (int i = start; i < name.length(); i++) {
+            char c = name.charAt(i);
+            int digit = c < 128 ? Character.digit(c, radix) : -1;
+            if (digit < 0) {
+                // not a number, keep it as text
+                return UNKNOWN_ENTITY;
+            }
+            codePoint = Math.min(codePoint * radix + digit, Character.MAX_CODE_POINT + 1L);
+        }
+        if (codePoint >= WIN1252_EXTENSIONS_START && codePoint < WIN1252_EXTENSIONS_START + WIN1252_EXTENSIONS.length) {
+            return WIN1252_EXTENSIONS[(int) codePoint - WIN1252_EXTENSIONS_START];
+        }
+        if (codePoint > Character.MAX_CODE_POINT || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+            return REPLACEMENT_CHAR;
+        }
+        return (int) codePoint;
+    }
+
+    private void appendString(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            appendChar(chars.charAt(i));
+        }
+    }
+
+    private void appendChar(char c) {
+        StringBuilder target;
+        if (inDocNo) {
+            target = docNo;
+        }
+        else if (inText) {
+            target = docText;
+        }
+        else {
+            return;
+        }
+        if (Character.isWhitespace(c) || c == NBSP) {
+            if (target.length() > 0 && target.charAt(target.length() - 1) != ' ') {
+                target.append(' ');
+            }
+        }
+        else {
+            target.append(c);
+        }
+    }
+
+    private String trimEnd(StringBuilder text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return text.substring(0, end);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != EOF) {
+            int c = pushedBack;
+            pushedBack = EOF;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
@@ -4,6 +4,7 @@ import Indexer.Indexer;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.util.Arrays;
 
 public class test {
 
@@ -20,14 +21,26 @@ public class test {
 //        String postfilePath = "C:\\Users\\orans\\Documents\\University\\Third year\\Semester E\\Information Retrieval";
 //        String path = "C:\\Users\\orans\\Documents\\University\\Third year\\Semester E\\Information Retrieval\\corpusTest";
 
-        try
-        {
-            FileUtils.cleanDirectory(new File("./postingFiles/"));
-            FileUtils.cleanDirectory(new File("./dicTemp/"));
-        }
-        catch (Exception e)
-        {
-            System.out.println("Could not clean Dirs");
+        // --resume continues the indexing from the last checkpoint of ./dicTemp/ instead of starting over
+        // --both builds the stemmed index too, in ./stemmedPostingFiles/ from the same pass
+        boolean resume = Arrays.asList(args).contains("--resume");
+        boolean both = Arrays.asList(args).contains("--both");
+        if (!resume) {
+            try
+            {
+                FileUtils.cleanDirectory(new File("./postingFiles/"));
+                FileUtils.cleanDirectory(new File("./dicTemp/"));
+                if (both) {
+                    FileUtils.forceMkdir(new File("./stemmedPostingFiles/"));
+                    FileUtils.cleanDirectory(new File("./stemmedPostingFiles/"));
+                    FileUtils.forceMkdir(new File("./stemmedDicTemp/"));
+                    FileUtils.cleanDirectory(new File("./stemmedDicTemp/"));
+                }
+            }
+            catch (Exception e)
+            {
+                System.out.println("Could not clean Dirs");
+            }
         }
 
         Indexer myIndexer = Indexer.getInstance();
@@ -45,8 +58,14 @@ public class test {
             System.out.println(IndexerThreads[i].getName() + " has started...");
             IndexerThreads[i].start();
         }
+        Thread stemmedIndexerThread = new Thread(Indexer.getStemmedInstance(), "Stemmed Indexer");
+        if (both) {
+            stemmedIndexerThread.start();
+        }
 
         ReadFile f = new ReadFile();
+        f.setResume(resume);
+        f.setDualIndexing(both);
         File corpus = new File(corpusPath);
         long startTime,endTime;
         startTime = System.nanoTime();
@@ -62,6 +81,9 @@ public class test {
                 IndexerThreads[i].join();
                 System.out.println(IndexerThreads[i].getName() + " has stopped...");
             }
+            if (both) {
+                stemmedIndexerThread.join();
+            }
         }
         catch (Exception e)
         {
@@ -72,6 +94,10 @@ public class test {
 
 
         System.out.println("Corpus Size = " + myIndexer.corpusSize());
+        if (both) {
+            Indexer.getStemmedInstance().createCorpusDictionary();
+            System.out.println("Stemmed Corpus Size = " + Indexer.getStemmedInstance().corpusSize());
+        }
 
 
         endTime = System.nanoTime();